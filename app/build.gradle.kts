@@ -33,6 +33,14 @@ android {
     buildFeatures {
         viewBinding = true
     }
+    testOptions {
+        // Los benchmarks locales (*Benchmark) no forman parte de "test"; se ejecutan con -Pbenchmarks.
+        unitTests.all { test ->
+            if (!project.hasProperty("benchmarks")) {
+                test.exclude("**/*Benchmark.class")
+            }
+        }
+    }
 }
 
 dependencies {
@@ -41,8 +49,11 @@ dependencies {
     implementation(libs.material)
     implementation(libs.activity)
     implementation(libs.constraintlayout)
+    implementation(libs.lifecycle.viewmodel)
     implementation(libs.firebase.firestore)
     implementation("com.github.bumptech.glide:glide:4.16.0")
+    implementation("com.github.bumptech.glide:recyclerview-integration:4.16.0")
+    annotationProcessor("com.github.bumptech.glide:compiler:4.16.0")
     implementation(libs.androidx.navigation.fragment)
     implementation(libs.androidx.navigation.ui)
     testImplementation(libs.junit)
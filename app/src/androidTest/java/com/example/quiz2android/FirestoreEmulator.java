@@ -0,0 +1,102 @@
+package com.example.quiz2android;
+
+import android.content.Context;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Conexión de las pruebas instrumentadas con el emulador local de Firestore:
+ *
+ * firebase emulators:start --only firestore
+ *
+ * Desde el emulador de Android el ordenador es 10.0.2.2; en un dispositivo
+ * físico se puede pasar otra dirección con el argumento
+ * -Pandroid.testInstrumentationRunnerArguments.firestoreEmulatorHost=IP:8080.
+ * Si el emulador de Firestore no responde, la prueba que llama a connect se
+ * omite (Assume).
+ *
+ * Usa una FirebaseApp aparte, para no cambiar la instancia de Firestore que
+ * usa la app.
+ *
+ * clear borra todos los documentos del emulador con su API REST
+ * (DELETE /emulator/v1/projects/{proyecto}/databases/(default)/documents).
+ * La petición se escribe directamente en un Socket porque la app no permite
+ * tráfico HTTP sin cifrar, y HttpURLConnection la rechazaría.
+ */
+final class FirestoreEmulator {
+
+    private static final String APP_NAME = "firestore-emulator";
+    private static final String DEFAULT_HOST = "10.0.2.2:8080";
+
+    private FirestoreEmulator() {
+    }
+
+    static FirebaseFirestore connect() {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        String host = getHost();
+        int port = getPort();
+        assumeTrue("El emulador de Firestore no responde en " + host + ":" + port, isReachable(host, port));
+
+        synchronized (FirestoreEmulator.class) {
+            try {
+                return FirebaseFirestore.getInstance(FirebaseApp.getInstance(APP_NAME));
+            } catch (IllegalStateException e) {
+                FirebaseApp app = FirebaseApp.initializeApp(context, FirebaseApp.getInstance().getOptions(), APP_NAME);
+                FirebaseFirestore db = FirebaseFirestore.getInstance(app);
+                db.useEmulator(host, port);
+                return db;
+            }
+        }
+    }
+
+    static void clear() throws IOException {
+        String path = "/emulator/v1/projects/" + FirebaseApp.getInstance().getOptions().getProjectId()
+                + "/databases/(default)/documents";
+        try (Socket socket = new Socket(getHost(), getPort())) {
+            OutputStream output = socket.getOutputStream();
+            output.write(("DELETE " + path + " HTTP/1.1\r\nHost: " + getHost() + ":" + getPort()
+                    + "\r\nContent-Length: 0\r\nConnection: close\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+            output.flush();
+            String status = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII))
+                    .readLine();
+            if (status == null || !status.contains(" 200")) {
+                throw new IOException("El emulador no borró los datos: " + status);
+            }
+        }
+    }
+
+    // Dirección del emulador: argumento firestoreEmulatorHost o DEFAULT_HOST.
+    private static String getHost() {
+        return getHostAndPort()[0];
+    }
+
+    private static int getPort() {
+        return Integer.parseInt(getHostAndPort()[1]);
+    }
+
+    private static String[] getHostAndPort() {
+        return InstrumentationRegistry.getArguments().getString("firestoreEmulatorHost", DEFAULT_HOST).split(":");
+    }
+
+    private static boolean isReachable(String host, int port) {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(host, port), 1_000);
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.quiz2android;
+
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.quiz2android.data.dao.BulkWriteResult;
+import com.example.quiz2android.data.dao.ProductCache;
+import com.example.quiz2android.data.dao.ProductCodec;
+import com.example.quiz2android.data.dao.ProductDao;
+import com.google.android.gms.tasks.OnSuccessListener;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.WriteBatch;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Migración única de los precios antiguos (ProductDao.migrateLegacyPrices).
+ * La app no la ejecuta: ProductCodec ya lee el precio del campo "password".
+ *
+ * migrateLegacyPrices_emulator la prueba contra el emulador local de
+ * Firestore (ver FirestoreEmulator) con documentos antiguos y actuales.
+ *
+ * migrateLegacyPrices_production es la tarea de administración que migra la
+ * base de datos real. Se omite salvo que se pida expresamente, y debe
+ * ejecutarla una sola persona, una vez:
+ *
+ * ./gradlew :app:connectedDebugAndroidTest -Pandroid.testInstrumentationRunnerArguments.class=com.example.quiz2android.LegacyPriceMigrationTest#migrateLegacyPrices_production -Pandroid.testInstrumentationRunnerArguments.migrateLegacyPrices=true
+ *
+ * Cada llamada migra como mucho MIGRATION_LIMIT documentos y solo lee los que
+ * aún tienen "password", así que se puede interrumpir y repetir.
+ */
+@RunWith(AndroidJUnit4.class)
+public class LegacyPriceMigrationTest {
+
+    private static final String TAG = "LegacyPriceMigration";
+    private static final String COLLECTION_NAME = "Productos";
+    private static final int MIGRATION_LIMIT = 500;
+    private static final int LEGACY_DOCUMENTS = 1_200;
+    private static final int CURRENT_DOCUMENTS = 50;
+
+    @Test
+    public void migrateLegacyPrices_emulator() throws Exception {
+        FirebaseFirestore db = FirestoreEmulator.connect();
+        FirestoreEmulator.clear();
+        seed(db);
+        ProductDao dao = createDao(db);
+
+        assertEquals(LEGACY_DOCUMENTS, migrateAll(dao));
+        assertEquals(0, migrateAll(dao));
+
+        QuerySnapshot snapshot = Tasks.await(db.collection(COLLECTION_NAME).get(), 30, TimeUnit.SECONDS);
+        assertEquals(LEGACY_DOCUMENTS + CURRENT_DOCUMENTS, snapshot.size());
+        for (DocumentSnapshot document : snapshot) {
+            assertFalse(document.contains(ProductCodec.LEGACY_FIELD_PASSWORD));
+            assertTrue(document.get(ProductCodec.FIELD_PRICE) instanceof Number);
+        }
+        DocumentSnapshot legacy = Tasks.await(db.collection(COLLECTION_NAME).document("antiguo-7").get(),
+                10, TimeUnit.SECONDS);
+        assertEquals(7.0, legacy.getDouble(ProductCodec.FIELD_PRICE), 0);
+    }
+
+    @Test
+    public void migrateLegacyPrices_production() throws Exception {
+        assumeTrue("Migración de producción no pedida (argumento migrateLegacyPrices=true)",
+                Boolean.parseBoolean(InstrumentationRegistry.getArguments().getString("migrateLegacyPrices")));
+
+        int migrated = migrateAll(createDao(FirebaseFirestore.getInstance()));
+        Log.i(TAG, "documentos migrados: " + migrated);
+    }
+
+    // Repite la migración mientras cada llamada llene su límite; devuelve el total de documentos escritos.
+    private static int migrateAll(ProductDao dao) throws InterruptedException {
+        int total = 0;
+        while (true) {
+            BulkWriteResult result = await(listener -> dao.migrateLegacyPrices(MIGRATION_LIMIT, listener));
+            assertNotNull("No se pudieron leer los documentos antiguos", result);
+            assertTrue("Algún lote falló", result.isSuccessful());
+            total += result.getWrittenCount();
+            if (result.getWrittenCount() < MIGRATION_LIMIT) {
+                return total;
+            }
+        }
+    }
+
+    // Documentos antiguos (precio en "password") y actuales (precio en "price").
+    private static void seed(FirebaseFirestore db) throws Exception {
+        WriteBatch batch = db.batch();
+        int pending = 0;
+        for (int i = 0; i < LEGACY_DOCUMENTS + CURRENT_DOCUMENTS; i++) {
+            Map<String, Object> data = new HashMap<>();
+            if (i < LEGACY_DOCUMENTS) {
+                data.put(ProductCodec.FIELD_NAME, "Antiguo " + i);
+                data.put(ProductCodec.LEGACY_FIELD_PASSWORD, String.valueOf(i));
+                batch.set(db.collection(COLLECTION_NAME).document("antiguo-" + i), data);
+            } else {
+                data.put(ProductCodec.FIELD_NAME, "Actual " + i);
+                data.put(ProductCodec.FIELD_PRICE, (double) i);
+                batch.set(db.collection(COLLECTION_NAME).document("actual-" + i), data);
+            }
+            if (++pending == MIGRATION_LIMIT) {
+                Tasks.await(batch.commit(), 30, TimeUnit.SECONDS);
+                batch = db.batch();
+                pending = 0;
+            }
+        }
+        Tasks.await(batch.commit(), 30, TimeUnit.SECONDS);
+    }
+
+    // Sin caché de getById y con los resultados entregados en el hilo que los produce.
+    private static ProductDao createDao(FirebaseFirestore db) {
+        return new ProductDao(db, new ProductCache(0, 0, 0), Executors.newSingleThreadExecutor(), Runnable::run);
+    }
+
+    private static <T> T await(Consumer<OnSuccessListener<T>> call) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<T> result = new AtomicReference<>();
+        call.accept(value -> {
+            result.set(value);
+            done.countDown();
+        });
+        assertTrue(done.await(60, TimeUnit.SECONDS));
+        return result.get();
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.quiz2android;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Informe de ProductDaoLoadTest en JSON, para comparar versiones de la app.
+ *
+ * A diferencia de ProductMetrics, que agrupa las latencias en cubetas, aquí
+ * se guarda cada muestra y los percentiles son exactos. Por cada tamaño de
+ * la colección (Tier) y cada operación (Samples):
+ * count y failures: llamadas terminadas con éxito y con error.
+ * documents: documentos leídos o escritos por las llamadas con éxito.
+ * opsPerSecond y documentsPerSecond: sobre el tiempo sumado de las llamadas,
+ * que se hacen una detrás de otra.
+ * meanMs, p50Ms, p99Ms y maxMs: latencia de cada llamada.
+ *
+ * Ejemplo:
+ * {"createdAtMillis":...,"appVersion":"1.0","device":"sdk_gphone64_x86_64","sdk":34,
+ * "tiers":[{"products":1000,"operations":{"INSERT":{"count":200,...}},"daoMetrics":{...}}]}
+ */
+final class LoadTestReport {
+
+    private final long createdAtMillis = System.currentTimeMillis();
+    private final String appVersion;
+    private final String device;
+    private final int sdk;
+    private final List<Tier> tiers = new ArrayList<>();
+
+    LoadTestReport(String appVersion, String device, int sdk) {
+        this.appVersion = appVersion;
+        this.device = device;
+        this.sdk = sdk;
+    }
+
+    synchronized Tier addTier(int products) {
+        Tier tier = new Tier(products);
+        tiers.add(tier);
+        return tier;
+    }
+
+    // Resultados de una colección con "products" productos.
+    static final class Tier {
+        private final int products;
+        private final Map<String, Samples> operations = new LinkedHashMap<>();
+        private String daoMetricsJson = "{}";
+
+        private Tier(int products) {
+            this.products = products;
+        }
+
+        synchronized Samples samples(String operation) {
+            Samples samples = operations.get(operation);
+            if (samples == null) {
+                samples = new Samples();
+                operations.put(operation, samples);
+            }
+            return samples;
+        }
+
+        // Métricas de ProductDao al terminar (ProductMetrics.toJson).
+        synchronized void setDaoMetrics(String json) {
+            daoMetricsJson = json;
+        }
+
+        // Llamadas fallidas de todas las operaciones.
+        synchronized long getFailures() {
+            long failures = 0;
+            for (Samples samples : operations.values()) {
+                failures += samples.getFailures();
+            }
+            return failures;
+        }
+
+        synchronized void appendJson(StringBuilder json) {
+            json.append("{\"products\":").append(products).append(",\"operations\":{");
+            boolean first = true;
+            for (Map.Entry<String, Samples> entry : operations.entrySet()) {
+                if (!first) {
+                    json.append(',');
+                }
+                first = false;
+                json.append('"').append(entry.getKey()).append("\":");
+                entry.getValue().appendJson(json);
+            }
+            json.append("},\"daoMetrics\":").append(daoMetricsJson).append('}');
+        }
+
+        @Override
+        public synchronized String toString() {
+            StringBuilder text = new StringBuilder(products + " productos:");
+            for (Map.Entry<String, Samples> entry : operations.entrySet()) {
+                text.append("\n  ").append(entry.getKey()).append(": ").append(entry.getValue());
+            }
+            return text.toString();
+        }
+    }
+
+    // Latencias de una operación, en nanosegundos.
+    static final class Samples {
+        private long[] nanos = new long[64];
+        private int count;
+        private long failures;
+        private long documents;
+        private long totalNanos;
+
+        synchronized void add(long elapsedNanos, int documents) {
+            if (count == nanos.length) {
+                nanos = Arrays.copyOf(nanos, count * 2);
+            }
+            nanos[count++] = elapsedNanos;
+            this.documents += documents;
+            totalNanos += elapsedNanos;
+        }
+
+        synchronized void fail(long elapsedNanos) {
+            failures++;
+            totalNanos += elapsedNanos;
+        }
+
+        synchronized long getFailures() {
+            return failures;
+        }
+
+        private double percentileMillis(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+        }
+
+        private double perSecond(long value) {
+            return totalNanos > 0 ? value * 1e9 / totalNanos : 0;
+        }
+
+        synchronized void appendJson(StringBuilder json) {
+            long[] sorted = Arrays.copyOf(nanos, count);
+            Arrays.sort(sorted);
+            json.append("{\"count\":").append(count)
+                    .append(",\"failures\":").append(failures)
+                    .append(",\"documents\":").append(documents)
+                    .append(",\"opsPerSecond\":").append(format(perSecond(count)))
+                    .append(",\"documentsPerSecond\":").append(format(perSecond(documents)))
+                    .append(",\"meanMs\":").append(format(count > 0 ? (double) sum(sorted) / count / 1e6 : 0))
+                    .append(",\"p50Ms\":").append(format(percentileMillis(sorted, 0.50)))
+                    .append(",\"p99Ms\":").append(format(percentileMillis(sorted, 0.99)))
+                    .append(",\"maxMs\":").append(format(count > 0 ? sorted[count - 1] / 1e6 : 0))
+                    .append('}');
+        }
+
+        @Override
+        public synchronized String toString() {
+            long[] sorted = Arrays.copyOf(nanos, count);
+            Arrays.sort(sorted);
+            return String.format(Locale.ROOT, "n=%d err=%d docs=%d %.1f ops/s %.1f docs/s p50=%.2fms p99=%.2fms",
+                    count, failures, documents, perSecond(count), perSecond(documents),
+                    percentileMillis(sorted, 0.50), percentileMillis(sorted, 0.99));
+        }
+
+        private static long sum(long[] values) {
+            long sum = 0;
+            for (long value : values) {
+                sum += value;
+            }
+            return sum;
+        }
+    }
+
+    synchronized String toJson() {
+        StringBuilder json = new StringBuilder("{");
+        json.append("\"createdAtMillis\":").append(createdAtMillis)
+                .append(",\"appVersion\":\"").append(escape(appVersion)).append('"')
+                .append(",\"device\":\"").append(escape(device)).append('"')
+                .append(",\"sdk\":").append(sdk)
+                .append(",\"tiers\":[");
+        for (int i = 0; i < tiers.size(); i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            tiers.get(i).appendJson(json);
+        }
+        return json.append("]}").toString();
+    }
+
+    // Se reescribe después de cada tamaño, así una ejecución interrumpida conserva lo medido.
+    void write(File file) throws IOException {
+        String json = toJson();
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write(json);
+        }
+    }
+
+    private static String escape(String value) {
+        return value == null ? "" : value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+}
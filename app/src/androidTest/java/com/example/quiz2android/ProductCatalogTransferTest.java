@@ -0,0 +1,130 @@
+package com.example.quiz2android;
+
+import android.content.Context;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.quiz2android.data.dao.ImportCheckpoint;
+import com.example.quiz2android.data.dao.ProductExporter;
+import com.example.quiz2android.data.dao.ProductFileFormat;
+import com.example.quiz2android.data.dao.ProductImporter;
+import com.example.quiz2android.data.dao.RateLimiter;
+import com.example.quiz2android.data.dao.TransferResult;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Prueba la importación y exportación del catálogo contra el emulador local
+ * de Firestore (ver FirestoreEmulator), sin tocar la base de datos real:
+ *
+ * ./gradlew :app:connectedDebugAndroidTest -Pandroid.testInstrumentationRunnerArguments.class=com.example.quiz2android.ProductCatalogTransferTest
+ *
+ * Cada ejecución usa una colección nueva. Las filas por segundo se escriben
+ * en el log con la etiqueta "CatalogTransfer".
+ */
+@RunWith(AndroidJUnit4.class)
+public class ProductCatalogTransferTest {
+
+    private static final String TAG = "CatalogTransfer";
+    private static final int ROWS = 2_000;
+    private static final int BATCH_SIZE = 450;
+
+    private Context context;
+    private FirebaseFirestore db;
+    private String collectionName;
+
+    @Before
+    public void setUp() {
+        context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        db = FirestoreEmulator.connect();
+        collectionName = "ProductosPrueba" + System.currentTimeMillis();
+    }
+
+    @Test
+    public void import_resumesFromCheckpointAndExportMatches() throws Exception {
+        File source = new File(context.getCacheDir(), collectionName + ".csv");
+        writeCatalog(source);
+
+        // Primera ejecución: se cancela después del primer lote.
+        ProductImporter importer = new ProductImporter(db, collectionName, BATCH_SIZE, unlimited());
+        importer.setProgressListener((rows, rowsPerSecond) -> importer.cancel());
+        TransferResult first = importer.run(source, ProductFileFormat.CSV);
+        assertFalse(first.isComplete());
+        assertEquals(BATCH_SIZE, first.getRows());
+        assertTrue(ImportCheckpoint.fileFor(source).exists());
+
+        // Segunda ejecución: sigue desde el punto de control.
+        TransferResult second = new ProductImporter(db, collectionName, BATCH_SIZE, unlimited())
+                .run(source, ProductFileFormat.CSV);
+        Log.i(TAG, "import: " + first + " / " + second);
+        assertTrue(second.isComplete());
+        assertTrue(second.getResumedFromLine() > 0);
+        assertEquals(ROWS - BATCH_SIZE, second.getRows());
+        assertEquals(1, second.getInvalidRows());
+        assertFalse(ImportCheckpoint.fileFor(source).exists());
+        assertEquals(ROWS, Tasks.await(db.collection(collectionName).count().get(AggregateSource.SERVER),
+                30, TimeUnit.SECONDS).getCount());
+
+        File target = new File(context.getCacheDir(), collectionName + ".jsonl");
+        TransferResult export = new ProductExporter(db, collectionName, 500).run(target, ProductFileFormat.JSON_LINES);
+        Log.i(TAG, "export: " + export);
+        assertTrue(export.isComplete());
+        assertEquals(ROWS, export.getRows());
+        assertEquals(ROWS, countParsedLines(target));
+
+        source.delete();
+        target.delete();
+    }
+
+    // Catálogo CSV con cabecera, productos sin ID y una fila no válida a la mitad.
+    private static void writeCatalog(File file) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+            writer.write("name,price\n");
+            for (int i = 0; i < ROWS; i++) {
+                if (i == ROWS / 2) {
+                    writer.write("Fila sin precio,\n");
+                }
+                writer.write(String.format(Locale.ROOT, "\"Producto %d, importado\",%d.5\n", i, i));
+            }
+        }
+    }
+
+    private static int countParsedLines(File file) throws IOException {
+        int count = 0;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                assertNotNull(line, ProductFileFormat.JSON_LINES.parse(line));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // El emulador no necesita la rampa 500/50/5.
+    private static RateLimiter unlimited() {
+        return new RateLimiter(1_000_000, 1_000_000, 0, 1, System::currentTimeMillis);
+    }
+}
@@ -0,0 +1,268 @@
+package com.example.quiz2android;
+
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+
+import com.example.quiz2android.data.dao.CallOptions;
+import com.example.quiz2android.data.dao.ProductCache;
+import com.example.quiz2android.data.dao.ProductCodec;
+import com.example.quiz2android.data.dao.ProductDao;
+import com.example.quiz2android.data.dao.ProductFetcher;
+import com.example.quiz2android.data.dao.ProductMetrics;
+import com.example.quiz2android.data.dao.ProductResult;
+import com.example.quiz2android.data.model.Product;
+import com.google.android.gms.tasks.OnSuccessListener;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+
+/**
+ * Prueba las lecturas de ProductDao con CallOptions (plazo, reintentos,
+ * lectura cubierta y NOT_FOUND) contra el emulador local de Firestore (ver
+ * FirestoreEmulator). El DAO lee con un ProductFetcher de prueba (TestFetcher)
+ * que puede retrasar las peticiones al servidor antes de enviarlas, hacer
+ * fallar las primeras con un error transitorio o simular una caché local vacía:
+ *
+ * ./gradlew :app:connectedDebugAndroidTest -Pandroid.testInstrumentationRunnerArguments.class=com.example.quiz2android.ProductDaoDeadlineTest
+ */
+@RunWith(AndroidJUnit4.class)
+public class ProductDaoDeadlineTest {
+
+    private static final String TAG = "DeadlineTest";
+    private static final String COLLECTION_NAME = "Productos";
+    private static final long SLOW_SERVER_MS = 3_000;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private FirebaseFirestore db;
+    private TestFetcher fetcher;
+    private ProductDao dao;
+
+    @Before
+    public void setUp() {
+        db = FirestoreEmulator.connect();
+        fetcher = new TestFetcher();
+        // Sin caché de getById y con los resultados entregados en el hilo que los produce.
+        dao = new ProductDao(db, new ProductCache(0, 0, 0), Executors.newSingleThreadExecutor(), Runnable::run,
+                fetcher);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    public void getById_missingDocumentIsNotFound() throws Exception {
+        ProductResult<Product> result = await(listener ->
+                dao.getById("no-existe-" + System.nanoTime(), CallOptions.DEFAULT, listener));
+
+        assertEquals(ProductResult.Status.NOT_FOUND, result.getStatus());
+        assertNull(result.getValue());
+    }
+
+    @Test
+    public void getById_slowServerTimesOut() throws Exception {
+        String id = createProduct();
+        fetcher.serverDelayMillis = SLOW_SERVER_MS;
+
+        ProductResult<Product> result = await(listener ->
+                dao.getById(id, CallOptions.DEFAULT.withDeadline(1_000), listener));
+        Log.i(TAG, "timeout: " + result);
+
+        assertEquals(ProductResult.Status.TIMEOUT, result.getStatus());
+        assertTrue(result.getElapsedMillis() < SLOW_SERVER_MS);
+    }
+
+    @Test
+    public void getById_retriesTransientFailures() throws Exception {
+        String id = createProduct();
+        fetcher.serverFailures.set(2);
+
+        ProductResult<Product> result = await(listener ->
+                dao.getById(id, CallOptions.DEFAULT.withBackoff(50, 100), listener));
+        Log.i(TAG, "reintentos: " + result);
+
+        assertEquals(ProductResult.Status.OK, result.getStatus());
+        assertEquals(ProductMetrics.Origin.SERVER, result.getOrigin());
+        assertEquals(3, result.getAttempts());
+    }
+
+    @Test
+    public void getById_transientFailuresStopAtMaxAttempts() throws Exception {
+        String id = createProduct();
+        fetcher.serverFailures.set(5);
+
+        ProductResult<Product> result = await(listener ->
+                dao.getById(id, CallOptions.DEFAULT.withMaxAttempts(2).withBackoff(50, 100), listener));
+
+        assertEquals(ProductResult.Status.ERROR, result.getStatus());
+        assertEquals(2, result.getAttempts());
+        assertTrue(result.getError() instanceof FirebaseFirestoreException);
+    }
+
+    @Test
+    public void getById_hedgedReadReturnsLocalCache() throws Exception {
+        // La escritura deja el documento en la caché local de Firestore.
+        String id = createProduct();
+        fetcher.serverDelayMillis = SLOW_SERVER_MS;
+
+        ProductResult<Product> result = await(listener ->
+                dao.getById(id, CallOptions.DEFAULT.withHedgeAfter(300), listener));
+        Log.i(TAG, "hedged: " + result);
+
+        assertEquals(ProductResult.Status.OK, result.getStatus());
+        assertEquals(ProductMetrics.Origin.CACHE, result.getOrigin());
+        assertEquals("Producto lento", result.getValue().getname());
+        assertTrue(result.getElapsedMillis() < SLOW_SERVER_MS);
+    }
+
+    @Test
+    public void getById_hedgedReadWithColdCacheWaitsForServer() throws Exception {
+        String id = createProduct();
+        fetcher.serverDelayMillis = 1_000;
+        fetcher.coldCache = true;
+
+        ProductResult<Product> result = await(listener ->
+                dao.getById(id, CallOptions.DEFAULT.withHedgeAfter(300), listener));
+        Log.i(TAG, "caché fría: " + result);
+
+        assertEquals(ProductResult.Status.OK, result.getStatus());
+        assertEquals(ProductMetrics.Origin.SERVER, result.getOrigin());
+        assertTrue(result.getElapsedMillis() >= 1_000);
+    }
+
+    @Test
+    public void getById_hedgedReadWithColdCacheTimesOut() throws Exception {
+        String id = createProduct();
+        fetcher.serverDelayMillis = SLOW_SERVER_MS;
+        fetcher.coldCache = true;
+
+        ProductResult<Product> result = await(listener ->
+                dao.getById(id, CallOptions.DEFAULT.withDeadline(1_000).withHedgeAfter(300), listener));
+
+        assertEquals(ProductResult.Status.TIMEOUT, result.getStatus());
+        assertNull(result.getValue());
+    }
+
+    @Test
+    public void getAll_waitsForSlowServerWithinDeadline() throws Exception {
+        createProduct();
+        fetcher.serverDelayMillis = 500;
+
+        ProductResult<List<Product>> result = await(listener -> dao.getAll(CallOptions.DEFAULT, listener));
+        Log.i(TAG, "getAll: " + result);
+
+        assertEquals(ProductResult.Status.OK, result.getStatus());
+        assertEquals(ProductMetrics.Origin.SERVER, result.getOrigin());
+        assertFalse(result.getValue().isEmpty());
+    }
+
+    @Test
+    public void getAll_ignoresHedgeAndNeverReturnsCache() throws Exception {
+        // La caché local tiene al menos este producto, pero puede no tener la colección completa.
+        createProduct();
+        fetcher.serverDelayMillis = 1_000;
+
+        ProductResult<List<Product>> result = await(listener ->
+                dao.getAll(CallOptions.DEFAULT.withHedgeAfter(100), listener));
+
+        assertEquals(ProductResult.Status.OK, result.getStatus());
+        assertEquals(ProductMetrics.Origin.SERVER, result.getOrigin());
+    }
+
+    private String createProduct() throws Exception {
+        String id = "lento-" + System.nanoTime();
+        Tasks.await(db.collection(COLLECTION_NAME).document(id).set(ProductCodec.toData(new Product("Producto lento", 10))),
+                10, TimeUnit.SECONDS);
+        return id;
+    }
+
+    private static <T> T await(Consumer<OnSuccessListener<T>> call) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicReference<T> result = new AtomicReference<>();
+        call.accept(value -> {
+            result.set(value);
+            done.countDown();
+        });
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        return result.get();
+    }
+
+    /**
+     * Lee de Firestore como el ProductFetcher por defecto, salvo que:
+     * serverDelayMillis retrasa cada petición al servidor antes de enviarla;
+     * serverFailures hace fallar ese número de peticiones al servidor con
+     * UNAVAILABLE (transitorio); coldCache hace fallar las lecturas de la caché
+     * local, como si estuviera vacía.
+     */
+    private class TestFetcher implements ProductFetcher {
+
+        volatile long serverDelayMillis;
+        volatile boolean coldCache;
+        final AtomicInteger serverFailures = new AtomicInteger();
+
+        @Override
+        public Task<DocumentSnapshot> getDocument(String id, Source source) {
+            Task<Void> ready = before(source);
+            return ready.continueWithTask(task -> {
+                if (!task.isSuccessful()) {
+                    return Tasks.forException(task.getException());
+                }
+                return db.collection(COLLECTION_NAME).document(id).get(source);
+            });
+        }
+
+        @Override
+        public Task<QuerySnapshot> getCollection(Source source) {
+            Task<Void> ready = before(source);
+            return ready.continueWithTask(task -> {
+                if (!task.isSuccessful()) {
+                    return Tasks.forException(task.getException());
+                }
+                return db.collection(COLLECTION_NAME).get(source);
+            });
+        }
+
+        // Tarea que termina cuando se puede enviar la lectura, o que falla si la lectura debe fallar.
+        private Task<Void> before(Source source) {
+            if (source == Source.CACHE) {
+                return coldCache
+                        ? Tasks.forException(new FirebaseFirestoreException("caché vacía",
+                                FirebaseFirestoreException.Code.UNAVAILABLE))
+                        : Tasks.forResult(null);
+            }
+            if (serverFailures.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+                return Tasks.forException(new FirebaseFirestoreException("servidor no disponible",
+                        FirebaseFirestoreException.Code.UNAVAILABLE));
+            }
+            long delay = serverDelayMillis;
+            if (delay <= 0) {
+                return Tasks.forResult(null);
+            }
+            return Tasks.<Void>forResult(null).continueWithTask(
+                    runnable -> scheduler.schedule(runnable, delay, TimeUnit.MILLISECONDS),
+                    task -> task);
+        }
+    }
+}
@@ -0,0 +1,309 @@
+package com.example.quiz2android;
+
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.quiz2android.data.dao.BulkWriteResult;
+import com.example.quiz2android.data.dao.ProductCache;
+import com.example.quiz2android.data.dao.ProductDao;
+import com.example.quiz2android.data.dao.ProductPage;
+import com.example.quiz2android.data.dao.ProductSort;
+import com.example.quiz2android.data.dao.ReadPolicy;
+import com.example.quiz2android.data.model.Product;
+import com.google.android.gms.tasks.OnSuccessListener;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.FixMethodOrder;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.MethodSorters;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+import static org.junit.Assert.*;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Prueba de carga de ProductDao contra el emulador local de Firestore (ver
+ * FirestoreEmulator), con colecciones de 1.000, 10.000 y 100.000 productos.
+ *
+ * Para cada tamaño se vacía el emulador, se carga la colección con insertAll
+ * y se mide, con la caché de getById desactivada y ReadPolicy.SERVER_ONLY
+ * (cada lectura llega al emulador):
+ * INSERT, GET_BY_ID, UPDATE y DELETE: SAMPLES llamadas sueltas.
+ * GET_PAGE: la colección completa, página a página.
+ * SEARCH y GET_STATS: consultas con límite y agregaciones en el servidor.
+ * GET_ALL: GET_ALL_RUNS lecturas de la colección completa.
+ * UPDATE_ALL, INSERT_ALL y DELETE_ALL: BATCH_RUNS operaciones masivas de
+ * hasta BATCH_ITEMS productos.
+ *
+ * El informe (ver LoadTestReport) se guarda en REPORT_FILE, en la carpeta
+ * additionalTestOutputDir que Gradle copia a
+ * app/build/outputs/connected_android_test_additional_output, o en
+ * getFilesDir() si no existe. También se escribe en el log con la etiqueta
+ * "LoadTest". Ejecutar la misma prueba en dos versiones y comparar los
+ * informes muestra las regresiones; las cifras del emulador no son las de
+ * producción, pero sí comparables entre sí.
+ *
+ * ./gradlew :app:connectedDebugAndroidTest -Pandroid.testInstrumentationRunnerArguments.class=com.example.quiz2android.ProductDaoLoadTest
+ *
+ * El argumento loadTestSizes elige los tamaños (por defecto todos), por
+ * ejemplo -Pandroid.testInstrumentationRunnerArguments.loadTestSizes=1000,10000
+ * para omitir el de 100.000, que tarda varios minutos.
+ */
+@RunWith(AndroidJUnit4.class)
+@FixMethodOrder(MethodSorters.NAME_ASCENDING)
+public class ProductDaoLoadTest {
+
+    private static final String TAG = "LoadTest";
+    private static final String REPORT_FILE = "product_load_test.json";
+    private static final String DEFAULT_SIZES = "1000,10000,100000";
+    private static final int SEED_CHUNK = 5_000;
+    private static final int SAMPLES = 200;
+    private static final int QUERY_SAMPLES = 50;
+    private static final int PAGE_SIZE = 100;
+    private static final int GET_ALL_RUNS = 3;
+    private static final int BATCH_RUNS = 5;
+    private static final int BATCH_ITEMS = 1_000;
+    private static final long CALL_TIMEOUT_SECONDS = 30;
+    private static final long BULK_TIMEOUT_SECONDS = 300;
+
+    private static LoadTestReport report;
+    private static File reportFile;
+
+    private FirebaseFirestore db;
+
+    @BeforeClass
+    public static void createReport() throws PackageManager.NameNotFoundException {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        String appVersion = context.getPackageManager().getPackageInfo(context.getPackageName(), 0).versionName;
+        report = new LoadTestReport(appVersion, Build.MANUFACTURER + " " + Build.MODEL, Build.VERSION.SDK_INT);
+        String outputDir = InstrumentationRegistry.getArguments().getString("additionalTestOutputDir");
+        File directory = outputDir != null ? new File(outputDir) : context.getFilesDir();
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            directory = context.getFilesDir();
+        }
+        reportFile = new File(directory, REPORT_FILE);
+    }
+
+    @Before
+    public void setUp() {
+        db = FirestoreEmulator.connect();
+    }
+
+    @Test
+    public void tier1_1kProducts() throws Exception {
+        runTier(1_000);
+    }
+
+    @Test
+    public void tier2_10kProducts() throws Exception {
+        runTier(10_000);
+    }
+
+    @Test
+    public void tier3_100kProducts() throws Exception {
+        runTier(100_000);
+    }
+
+    private void runTier(int products) throws Exception {
+        assumeTrue("Tamaño no pedido en loadTestSizes: " + products, requestedSizes().contains(products));
+        FirestoreEmulator.clear();
+        // Sin caché de getById, leyendo siempre del servidor y con los resultados en el hilo que los produce.
+        ProductDao dao = new ProductDao(db, new ProductCache(0, 0, 0), Executors.newSingleThreadExecutor(), Runnable::run);
+        dao.setReadPolicy(ReadPolicy.SERVER_ONLY);
+        LoadTestReport.Tier tier = report.addTier(products);
+        Random random = new Random(products);
+
+        List<String> ids = seed(dao, products, tier.samples("SEED"));
+        assertEquals(products, ids.size());
+
+        List<String> inserted = new ArrayList<>(SAMPLES);
+        for (int i = 0; i < SAMPLES; i++) {
+            Product product = product("Insertado " + i, random);
+            String id = timed(tier.samples("INSERT"), listener -> dao.insert(product, listener), value -> 1,
+                    CALL_TIMEOUT_SECONDS);
+            if (id != null) {
+                inserted.add(id);
+            }
+        }
+        for (int i = 0; i < SAMPLES; i++) {
+            String id = ids.get(random.nextInt(ids.size()));
+            ProductDaoLoadTest.<Product>timed(tier.samples("GET_BY_ID"), listener -> dao.getById(id, listener),
+                    value -> 1, CALL_TIMEOUT_SECONDS);
+        }
+        for (int i = 0; i < SAMPLES; i++) {
+            String id = ids.get(random.nextInt(ids.size()));
+            Product product = product("Actualizado " + i, random);
+            timed(tier.samples("UPDATE"), listener -> dao.update(id, product, listener), ProductDaoLoadTest::writtenOne,
+                    CALL_TIMEOUT_SECONDS);
+        }
+        for (String id : inserted) {
+            timed(tier.samples("DELETE"), listener -> dao.delete(id, listener), ProductDaoLoadTest::writtenOne,
+                    CALL_TIMEOUT_SECONDS);
+        }
+
+        // Toda la colección, página a página, como el scroll infinito de la lista.
+        int pagedProducts = 0;
+        DocumentSnapshot cursor = null;
+        do {
+            DocumentSnapshot startAfter = cursor;
+            ProductPage page = timed(tier.samples("GET_PAGE"), listener -> dao.getPage(PAGE_SIZE, startAfter, listener),
+                    value -> value.getProducts().size(), CALL_TIMEOUT_SECONDS);
+            if (page == null) {
+                break;
+            }
+            pagedProducts += page.getProducts().size();
+            cursor = page.hasMore() ? page.getLastSnapshot() : null;
+        } while (cursor != null);
+        assertEquals(products, pagedProducts);
+
+        for (int i = 0; i < QUERY_SAMPLES; i++) {
+            String prefix = "Producto " + random.nextInt(10);
+            ProductDaoLoadTest.<List<Product>>timed(tier.samples("SEARCH"), listener -> dao.search(prefix, ProductSort.NAME_ASC, PAGE_SIZE, listener),
+                    List::size, CALL_TIMEOUT_SECONDS);
+            timed(tier.samples("GET_STATS"), dao::getStats, value -> 1, CALL_TIMEOUT_SECONDS);
+        }
+
+        for (int i = 0; i < GET_ALL_RUNS; i++) {
+            List<Product> all = timed(tier.samples("GET_ALL"), dao::getAll, List::size, BULK_TIMEOUT_SECONDS);
+            assertNotNull(all);
+            assertEquals(products, all.size());
+        }
+
+        int batchItems = Math.min(BATCH_ITEMS, products);
+        for (int run = 0; run < BATCH_RUNS; run++) {
+            int first = random.nextInt(products - batchItems + 1);
+            List<Product> updates = new ArrayList<>(batchItems);
+            for (String id : ids.subList(first, first + batchItems)) {
+                Product product = product("Lote " + run, random);
+                product.setId(id);
+                updates.add(product);
+            }
+            timed(tier.samples("UPDATE_ALL"), listener -> dao.updateAll(updates, listener),
+                    ProductDaoLoadTest::writtenBulk, BULK_TIMEOUT_SECONDS);
+
+            List<Product> fresh = products("Lote nuevo " + run + " ", batchItems, random);
+            BulkWriteResult insertedBatch = timed(tier.samples("INSERT_ALL"), listener -> dao.insertAll(fresh, listener),
+                    ProductDaoLoadTest::writtenBulk, BULK_TIMEOUT_SECONDS);
+            timed(tier.samples("DELETE_ALL"), listener -> dao.deleteAll(writtenIds(insertedBatch), listener),
+                    ProductDaoLoadTest::writtenBulk, BULK_TIMEOUT_SECONDS);
+        }
+
+        tier.setDaoMetrics(dao.getMetrics().toJson());
+        Log.i(TAG, tier.toString());
+        report.write(reportFile);
+        Log.i(TAG, "informe: " + reportFile);
+        assertEquals(0, tier.getFailures());
+    }
+
+    // Carga la colección con insertAll en partes de SEED_CHUNK y devuelve los IDs escritos.
+    private static List<String> seed(ProductDao dao, int products, LoadTestReport.Samples samples)
+            throws InterruptedException {
+        List<String> ids = new ArrayList<>(products);
+        Random random = new Random(-products);
+        for (int offset = 0; offset < products; offset += SEED_CHUNK) {
+            List<Product> chunk = products("Producto ", Math.min(SEED_CHUNK, products - offset), random);
+            BulkWriteResult result = timed(samples, listener -> dao.insertAll(chunk, listener),
+                    ProductDaoLoadTest::writtenBulk, BULK_TIMEOUT_SECONDS);
+            ids.addAll(writtenIds(result));
+        }
+        return ids;
+    }
+
+    private static List<Product> products(String namePrefix, int count, Random random) {
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            products.add(product(namePrefix + random.nextInt(1_000_000), random));
+        }
+        return products;
+    }
+
+    private static Product product(String name, Random random) {
+        return new Product(name, random.nextInt(100_000) / 100.0);
+    }
+
+    private static List<String> writtenIds(BulkWriteResult result) {
+        List<String> ids = new ArrayList<>();
+        if (result != null) {
+            for (BulkWriteResult.Chunk chunk : result.getChunks()) {
+                if (chunk.isSuccessful()) {
+                    ids.addAll(chunk.getIds());
+                }
+            }
+        }
+        return ids;
+    }
+
+    // Documentos escritos, o -1 si la escritura falló (ver timed).
+    private static int writtenOne(Boolean success) {
+        return Boolean.TRUE.equals(success) ? 1 : -1;
+    }
+
+    private static int writtenBulk(BulkWriteResult result) {
+        return result.isSuccessful() ? result.getWrittenCount() : -1;
+    }
+
+    private static List<Integer> requestedSizes() {
+        String sizes = InstrumentationRegistry.getArguments().getString("loadTestSizes", DEFAULT_SIZES);
+        List<Integer> requested = new ArrayList<>();
+        for (String size : Arrays.asList(sizes.split(","))) {
+            requested.add(Integer.parseInt(size.trim()));
+        }
+        return requested;
+    }
+
+    /**
+     * Hace una llamada de ProductDao, espera su resultado y lo añade a
+     * samples. documents dice cuántos documentos leyó o escribió, o -1 si
+     * falló; un resultado null (como devuelve ProductDao al fallar) también
+     * cuenta como fallo.
+     */
+    private static <T> T timed(LoadTestReport.Samples samples, Consumer<OnSuccessListener<T>> call,
+                               ToIntFunction<T> documents, long timeoutSeconds) throws InterruptedException {
+        long start = System.nanoTime();
+        T result = await(call, timeoutSeconds);
+        long elapsed = System.nanoTime() - start;
+        int count = result != null ? documents.applyAsInt(result) : -1;
+        if (count < 0) {
+            samples.fail(elapsed);
+        } else {
+            samples.add(elapsed, count);
+        }
+        return result;
+    }
+
+    private static <T> T await(Consumer<OnSuccessListener<T>> call, long timeoutSeconds) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        AtomicReference<T> result = new AtomicReference<>();
+        call.accept(value -> {
+            result.set(value);
+            calls.incrementAndGet();
+            done.countDown();
+        });
+        assertTrue(done.await(timeoutSeconds, TimeUnit.SECONDS));
+        // Cada operación de ProductDao llama a su listener una sola vez.
+        assertEquals(1, calls.get());
+        return result.get();
+    }
+}
@@ -0,0 +1,257 @@
+package com.example.quiz2android;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.net.Uri;
+import android.os.Debug;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.util.Log;
+import android.view.FrameMetrics;
+import android.view.Window;
+
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import com.example.quiz2android.data.adapter.ProductAdapter;
+import com.example.quiz2android.data.model.Product;
+
+import com.bumptech.glide.Glide;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+/**
+ * Mide la duración de los frames al hacer scroll por una lista de 10.000
+ * productos en ProductActivity2, con FrameMetrics (API 24).
+ *
+ * Se hacen dos pasadas con el mismo adaptador: una con la configuración por
+ * defecto de RecyclerView (sin tamaño fijo, sin prefetch, caché y pool por
+ * defecto) y otra con la configuración ajustada de ProductActivity2. Los
+ * resultados (p50, p90, p99 y frames de más de 16 ms) se escriben en el log
+ * con la etiqueta "ScrollBenchmark". La pasada ajustada falla si su p90 pasa
+ * de MAX_P90_NANOS o si más de MAX_JANK_PERCENT de sus frames superan 16 ms.
+ *
+ * scrollProductsWithImages repite la pasada ajustada con una miniatura en
+ * cada producto (IMAGES archivos JPEG distintos de IMAGE_SIZE píxeles, más
+ * que los que caben en la caché de memoria de Glide) y escribe también la
+ * memoria usada (Java y nativa, donde viven los bitmaps desde Android 8)
+ * antes y después de los flings. Falla si la memoria crece más que las
+ * cachés de Glide (image_memory_cache_mb más image_bitmap_pool_mb, ver
+ * QuizGlideModule) y MAX_MEMORY_SLACK_BYTES:
+ *
+ * ./gradlew :app:connectedDebugAndroidTest -Pandroid.testInstrumentationRunnerArguments.class=com.example.quiz2android.ProductListScrollBenchmark
+ */
+@RunWith(AndroidJUnit4.class)
+public class ProductListScrollBenchmark {
+
+    private static final String TAG = "ScrollBenchmark";
+    private static final int ITEMS = 10_000;
+    private static final int FLINGS = 10;
+    private static final long FLING_WAIT_MS = 1_200;
+    private static final long JANK_NANOS = 16_666_667L;
+    // Límites de la pasada ajustada; dejan margen para emuladores lentos.
+    private static final long MAX_P90_NANOS = 2 * JANK_NANOS;
+    private static final double MAX_JANK_PERCENT = 10;
+    private static final int IMAGES = 300;
+    private static final int IMAGE_SIZE = 512;
+    // Margen sobre las cachés de Glide para vistas, decodificación en curso y ruido del heap.
+    private static final long MAX_MEMORY_SLACK_BYTES = 32L * 1024 * 1024;
+
+    @Test
+    public void scroll10kProducts_defaultVersusTuned() throws Exception {
+        try (ActivityScenario<ProductActivity2> scenario = ActivityScenario.launch(ProductActivity2.class)) {
+            long[] defaults = measure(scenario, false);
+            long[] tuned = measure(scenario, true);
+
+            Log.i(TAG, summary("por defecto", defaults));
+            Log.i(TAG, summary("ajustado", tuned));
+            assertSmooth("ajustado", tuned);
+        }
+    }
+
+    @Test
+    public void scrollProductsWithImages_framesAndMemory() throws Exception {
+        Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+        List<String> images = writeImages(new File(context.getCacheDir(), "bench-images"));
+        try (ActivityScenario<ProductActivity2> scenario = ActivityScenario.launch(ProductActivity2.class)) {
+            scenario.onActivity(activity -> Glide.get(activity).clearMemory());
+            long before = usedMemoryBytes();
+            long[] frames = measure(scenario, true, images);
+            long after = usedMemoryBytes();
+            long maxGrowth = (context.getResources().getInteger(R.integer.image_memory_cache_mb)
+                    + context.getResources().getInteger(R.integer.image_bitmap_pool_mb)) * 1048576L
+                    + MAX_MEMORY_SLACK_BYTES;
+
+            Log.i(TAG, summary("con imágenes", frames));
+            Log.i(TAG, String.format(Locale.ROOT, "memoria: antes=%.1f MB, después=%.1f MB, límite=+%.1f MB",
+                    before / 1048576.0, after / 1048576.0, maxGrowth / 1048576.0));
+            assertSmooth("con imágenes", frames);
+            assertTrue(String.format(Locale.ROOT, "memoria: +%.1f MB (límite +%.1f MB)",
+                    (after - before) / 1048576.0, maxGrowth / 1048576.0), after - before <= maxGrowth);
+        }
+    }
+
+    private long[] measure(ActivityScenario<ProductActivity2> scenario, boolean tuned) throws Exception {
+        return measure(scenario, tuned, null);
+    }
+
+    // Hace FLINGS flings hacia abajo y devuelve la duración de cada frame, en nanosegundos.
+    private long[] measure(ActivityScenario<ProductActivity2> scenario, boolean tuned,
+                           List<String> images) throws Exception {
+        final List<Long> frames = new ArrayList<>();
+        HandlerThread thread = new HandlerThread("frame-metrics");
+        thread.start();
+        final Window.OnFrameMetricsAvailableListener frameListener = (window, metrics, dropped) -> {
+            synchronized (frames) {
+                frames.add(metrics.getMetric(FrameMetrics.TOTAL_DURATION));
+            }
+        };
+        final RecyclerView[] recyclerView = new RecyclerView[1];
+
+        scenario.onActivity(activity -> {
+            RecyclerView list = activity.findViewById(R.id.recyclerView);
+            configure(list, tuned);
+            ((ProductAdapter) list.getAdapter()).submitList(products(images));
+            list.scrollToPosition(0);
+            recyclerView[0] = list;
+            activity.getWindow().addOnFrameMetricsAvailableListener(frameListener, new Handler(thread.getLooper()));
+        });
+        InstrumentationRegistry.getInstrumentation().waitForIdleSync();
+
+        for (int i = 0; i < FLINGS; i++) {
+            scenario.onActivity(activity -> recyclerView[0].fling(0, recyclerView[0].getMaxFlingVelocity()));
+            Thread.sleep(FLING_WAIT_MS);
+        }
+
+        scenario.onActivity(activity -> activity.getWindow().removeOnFrameMetricsAvailableListener(frameListener));
+        thread.quitSafely();
+
+        synchronized (frames) {
+            long[] durations = new long[frames.size()];
+            for (int i = 0; i < durations.length; i++) {
+                durations[i] = frames.get(i);
+            }
+            return durations;
+        }
+    }
+
+    private static void configure(RecyclerView list, boolean tuned) {
+        LinearLayoutManager layoutManager = (LinearLayoutManager) list.getLayoutManager();
+        if (tuned) {
+            // Igual que ProductActivity2.onCreate.
+            layoutManager.setItemPrefetchEnabled(true);
+            list.setHasFixedSize(true);
+            list.setItemViewCacheSize(10);
+            list.getRecycledViewPool().setMaxRecycledViews(0, 20);
+        } else {
+            layoutManager.setItemPrefetchEnabled(false);
+            list.setHasFixedSize(false);
+            list.setItemViewCacheSize(2);
+            list.getRecycledViewPool().setMaxRecycledViews(0, 5);
+        }
+    }
+
+    // Productos con nombres de distinta longitud; uno de cada cuatro es largo.
+    // Si hay imágenes, cada producto usa una, en orden.
+    private static List<Product> products(List<String> images) {
+        List<Product> products = new ArrayList<>(ITEMS);
+        for (int i = 0; i < ITEMS; i++) {
+            String name = i % 4 == 0
+                    ? "Producto de prueba con un nombre bastante largo número " + i
+                    : "Producto " + i;
+            Product product = new Product(name, i * 10);
+            product.setId(String.format(Locale.ROOT, "bench-%05d", i));
+            if (images != null) {
+                product.setImageUrl(images.get(i % images.size()));
+            }
+            products.add(product);
+        }
+        return products;
+    }
+
+    // Imágenes JPEG de un color distinto cada una, mucho más grandes que la miniatura.
+    private static List<String> writeImages(File directory) throws IOException {
+        directory.mkdirs();
+        List<String> images = new ArrayList<>(IMAGES);
+        Bitmap bitmap = Bitmap.createBitmap(IMAGE_SIZE, IMAGE_SIZE, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        for (int i = 0; i < IMAGES; i++) {
+            File file = new File(directory, "image-" + i + ".jpg");
+            if (!file.exists()) {
+                canvas.drawColor(Color.HSVToColor(new float[]{i * 360f / IMAGES, 0.6f, 0.9f}));
+                try (OutputStream output = new FileOutputStream(file)) {
+                    bitmap.compress(Bitmap.CompressFormat.JPEG, 90, output);
+                }
+            }
+            images.add(Uri.fromFile(file).toString());
+        }
+        bitmap.recycle();
+        return images;
+    }
+
+    // Memoria retenida tras una recolección de basura, para no contar objetos ya inalcanzables.
+    private static long usedMemoryBytes() {
+        Runtime runtime = Runtime.getRuntime();
+        runtime.gc();
+        runtime.runFinalization();
+        return runtime.totalMemory() - runtime.freeMemory() + Debug.getNativeHeapAllocatedSize();
+    }
+
+    private static String summary(String label, long[] durations) {
+        if (durations.length == 0) {
+            return label + ": sin frames";
+        }
+        long[] sorted = durations.clone();
+        Arrays.sort(sorted);
+        int janky = 0;
+        for (long duration : sorted) {
+            if (duration > JANK_NANOS) {
+                janky++;
+            }
+        }
+        return String.format(Locale.ROOT, "%s: %d frames, p50=%.2f ms, p90=%.2f ms, p99=%.2f ms, >16ms=%d (%.1f%%)",
+                label, sorted.length,
+                percentile(sorted, 0.50) / 1e6, percentile(sorted, 0.90) / 1e6, percentile(sorted, 0.99) / 1e6,
+                janky, janky * 100.0 / sorted.length);
+    }
+
+    // Comprueba que hubo frames y que el p90 y la proporción de frames de más de 16 ms no pasan los límites.
+    private static void assertSmooth(String label, long[] durations) {
+        assertTrue(label + ": sin frames", durations.length > 0);
+        long[] sorted = durations.clone();
+        Arrays.sort(sorted);
+        int janky = 0;
+        for (long duration : sorted) {
+            if (duration > JANK_NANOS) {
+                janky++;
+            }
+        }
+        long p90 = percentile(sorted, 0.90);
+        assertTrue(String.format(Locale.ROOT, "%s: p90=%.2f ms", label, p90 / 1e6), p90 <= MAX_P90_NANOS);
+        double jankPercent = janky * 100.0 / sorted.length;
+        assertTrue(String.format(Locale.ROOT, "%s: %.1f%% frames de más de 16 ms", label, jankPercent),
+                jankPercent <= MAX_JANK_PERCENT);
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+}
@@ -42,6 +42,14 @@ public class MainActivity extends AppCompatActivity {
         });
 
     }
+
+    // Mientras esta pantalla está visible se empieza a leer la primera página de
+    // productos, que ProductActivity2 recoge al pulsar "Leer".
+    @Override
+    protected void onStart() {
+        super.onStart();
+        ((QuizApplication) getApplication()).getProductRepository().prefetchFirstPage(ProductListViewModel.PAGE_SIZE);
+    }
 }
 
 /**
@@ -76,6 +84,11 @@ public class MainActivity extends AppCompatActivity {
  * que ProductActivity2 será la próxima actividad en abrirse.
  * startActivity(intent); inicia la nueva actividad y lleva al usuario a la interfaz
  * de gestión de productos.
+ * Método onStart (prelectura):
+ * Cada vez que la pantalla se vuelve visible pide a ProductRepository que empiece
+ * a leer la primera página de productos. Como el siguiente paso del usuario es
+ * abrir ProductActivity2 y pulsar "Leer", la lista ya está cargada o en camino.
+ *
  * ¿Por qué es útil esta pantalla?
  * MainActivity funciona como una pantalla de inicio o menú principal. En este caso,
  * al hacer clic en el botón de inicio de sesión, se redirige al usuario hacia
@@ -1,6 +1,9 @@
 package com.example.quiz2android;
 
 import android.os.Bundle;
+import android.os.Parcelable;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.util.Log;
 import android.view.View;
 import android.widget.Button;
@@ -9,27 +12,52 @@ import android.widget.Toast;
 
 import com.google.android.gms.tasks.OnSuccessListener;
 import androidx.activity.EdgeToEdge;
+import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.graphics.Insets;
 import androidx.core.view.ViewCompat;
 import androidx.core.view.WindowInsetsCompat;
+import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.integration.recyclerview.RecyclerViewPreloader;
+import com.bumptech.glide.util.FixedPreloadSizeProvider;
 import com.example.quiz2android.data.adapter.ProductAdapter;
+import com.example.quiz2android.data.dao.ProductCodec;
 import com.example.quiz2android.data.dao.ProductDao;
 import com.example.quiz2android.data.model.Product;
-import com.google.firebase.firestore.FirebaseFirestore;
+import com.example.quiz2android.data.model.ProductStore;
 
-import java.util.List;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
-public class ProductActivity2 extends AppCompatActivity {
-    private FirebaseFirestore db;
-    private ProductDao userDao;
+public class ProductActivity2 extends AppCompatActivity implements ProductListViewModel.Listener {
+    // Máximo de resultados que muestra la búsqueda mientras se escribe.
+    private static final int SEARCH_LIMIT = 50;
+    // Archivo (en getFilesDir()) donde se guardan las métricas de ProductDao al salir de la pantalla.
+    private static final String METRICS_FILE = "product_metrics.json";
+    // Ítems fuera de pantalla que se guardan ya enlazados, y ViewHolders reciclados que se conservan.
+    private static final int ITEM_VIEW_CACHE_SIZE = 10;
+    private static final int RECYCLED_POOL_SIZE = 20;
+    // Ítems por delante del scroll cuyas miniaturas se precargan.
+    private static final int PRELOAD_AHEAD_ITEMS = 15;
+    // Hilo de fondo donde se guardan las métricas en disco, fuera del hilo principal.
+    private static final Executor METRICS_EXECUTOR = Executors.newSingleThreadExecutor();
+
+    private ProductListViewModel viewModel;
     private RecyclerView recyclerView;
     private ProductAdapter userAdapter;
     private Button btnLeer, btncrear, btneliminar, btnUpdate;
-    private TextView editTextName, editTextPrecio, editTextID;
+    private TextView editTextName, editTextPrecio, editTextID, editTextSearch;
+    // Modelo local de los productos cargados; vive en el ViewModel y sobrevive al giro.
+    private ProductStore productStore;
+    // true mientras el campo de búsqueda tiene texto (se muestran resultados, no la lista).
+    private boolean searching;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -44,9 +72,13 @@ public class ProductActivity2 extends AppCompatActivity {
             return insets;
         });
 
-        // Inicializa la base de datos de Firestore y el DAO para productos.
-        db = FirebaseFirestore.getInstance();
-        userDao = new ProductDao(db);
+        // El estado de la lista (productos, cursor, scroll y escucha en tiempo real)
+        // vive en el ViewModel, que se conserva al girar el dispositivo. El DAO es el
+        // compartido de la app: conserva su caché, su cola de escrituras y sus métricas.
+        // Se usa a través de viewModel.withDao, que espera sin bloquear a que esté listo.
+        viewModel = new ViewModelProvider(this).get(ProductListViewModel.class);
+        viewModel.setListener(this);
+        productStore = viewModel.getProductStore();
 
         // Vincula los elementos de la interfaz con sus ID en el layout.
         btncrear = findViewById(R.id.btnCrear);
@@ -56,33 +88,74 @@ public class ProductActivity2 extends AppCompatActivity {
         editTextName = findViewById(R.id.NombreProduct);
         editTextID = findViewById(R.id.IdProduct);
         editTextPrecio = findViewById(R.id.PrecioProduct);
+        editTextSearch = findViewById(R.id.BuscarProduct);
         recyclerView = findViewById(R.id.recyclerView);
 
         // Configura el RecyclerView para mostrar la lista de productos.
-        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        // El adaptador se crea una sola vez y se reutiliza en cada lectura.
+        // El RecyclerView tiene tamaño fijo en el layout, así que los cambios de la
+        // lista no obligan a medirlo otra vez. Se guardan más ítems enlazados fuera
+        // de pantalla y más ViewHolders reciclados para hacer scroll sin inflar vistas,
+        // y el LinearLayoutManager prepara el siguiente ítem entre frames (prefetch).
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        layoutManager.setItemPrefetchEnabled(true);
+        recyclerView.setLayoutManager(layoutManager);
+        recyclerView.setHasFixedSize(true);
+        recyclerView.setItemViewCacheSize(ITEM_VIEW_CACHE_SIZE);
+        recyclerView.getRecycledViewPool().setMaxRecycledViews(0, RECYCLED_POOL_SIZE);
+        // Las miniaturas se cargan con Glide al tamaño exacto del ImageView, y un
+        // RecyclerViewPreloader carga las de los próximos ítems mientras se hace
+        // scroll, para que al aparecer ya estén en la caché de memoria.
+        RequestManager glide = Glide.with(this);
+        int thumbnailSize = getResources().getDimensionPixelSize(R.dimen.product_thumbnail_size);
+        userAdapter = new ProductAdapter(glide, thumbnailSize, new OnSuccessListener<Product>() {
+            @Override
+            public void onSuccess(Product product) {
+                Toast.makeText(ProductActivity2.this, "Product: " + product.getname(), Toast.LENGTH_SHORT).show();
+            }
+        });
+        // Las páginas siguientes se piden al hacer scroll cerca del final.
+        userAdapter.setOnLoadMoreListener(viewModel::loadNextPage);
+        recyclerView.setAdapter(userAdapter);
+        recyclerView.addOnScrollListener(new RecyclerViewPreloader<>(glide, userAdapter,
+                new FixedPreloadSizeProvider<Product>(thumbnailSize, thumbnailSize), PRELOAD_AHEAD_ITEMS));
+
+        // Tras un giro, vuelve a pintar la lista desde memoria (sin leer de Firestore)
+        // y recupera la posición de scroll cuando el adaptador ya tiene los productos.
+        if (viewModel.isLoaded()) {
+            updateHasMore();
+            final Parcelable scrollState = viewModel.getScrollState();
+            showProducts(() -> recyclerView.getLayoutManager().onRestoreInstanceState(scrollState));
+        }
+
+        // Busca mientras se escribe usando el índice en memoria de los productos cargados.
+        editTextSearch.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+                // Solo al empezar o terminar una búsqueda: setHasMore permite volver a pedir una página.
+                boolean nowSearching = s.toString().trim().length() > 0;
+                if (nowSearching != searching) {
+                    searching = nowSearching;
+                    updateHasMore();
+                }
+                showProducts();
+            }
 
-        // Configura el botón de "Leer" para obtener la lista de productos.
+            @Override
+            public void afterTextChanged(Editable s) {
+            }
+        });
+
+        // Configura el botón de "Leer" para obtener la primera página de productos.
         btnLeer.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View view) {
-                userDao.getAll(new OnSuccessListener<List<Product>>() {
-                    @Override
-                    public void onSuccess(List<Product> products) {
-                        // Configura el adaptador con la lista de productos obtenida y muestra un mensaje al seleccionar un producto.
-                        userAdapter = new ProductAdapter(products, new OnSuccessListener<Product>() {
-                            @Override
-                            public void onSuccess(Product product) {
-                                Toast.makeText(ProductActivity2.this, "Product: " + product.getname(), Toast.LENGTH_SHORT).show();
-                            }
-                        });
-                        recyclerView.setAdapter(userAdapter);
-
-                        // Registra en el log la lista de productos.
-                        for (Product product : products) {
-                            Log.d("ProductActivity2", "Product: " + product.getname());
-                        }
-                    }
-                });
+                userAdapter.resetLoadMore();
+                viewModel.readFirstPage();
             }
         });
 
@@ -91,12 +164,17 @@ public class ProductActivity2 extends AppCompatActivity {
             @Override
             public void onClick(View v) {
                 // Crea un nuevo producto con el nombre y precio ingresados.
-                userDao.insert(new Product(editTextName.getText().toString(), editTextPrecio.getText().toString()), new OnSuccessListener<String>() {
+                Double price = readPrice();
+                if (price == null) {
+                    return;
+                }
+                Product product = new Product(editTextName.getText().toString(), price);
+                viewModel.withDao(dao -> dao.insert(product, new OnSuccessListener<String>() {
                     @Override
                     public void onSuccess(String s) {
                         Toast.makeText(ProductActivity2.this, "Producto creado con éxito", Toast.LENGTH_SHORT).show();
                     }
-                });
+                }));
             }
         });
 
@@ -104,12 +182,13 @@ public class ProductActivity2 extends AppCompatActivity {
         btneliminar.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                userDao.delete(editTextID.getText().toString(), new OnSuccessListener<Boolean>() {
+                String id = editTextID.getText().toString();
+                viewModel.withDao(dao -> dao.delete(id, new OnSuccessListener<Boolean>() {
                     @Override
                     public void onSuccess(Boolean aBoolean) {
                         Toast.makeText(ProductActivity2.this, "Producto eliminado", Toast.LENGTH_SHORT).show();
                     }
-                });
+                }));
             }
         });
 
@@ -117,21 +196,120 @@ public class ProductActivity2 extends AppCompatActivity {
         btnUpdate.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View v) {
-                userDao.update(editTextID.getText().toString(), new Product(editTextName.getText().toString(), editTextPrecio.getText().toString()), new OnSuccessListener<Boolean>() {
+                Double price = readPrice();
+                if (price == null) {
+                    return;
+                }
+                String id = editTextID.getText().toString();
+                Product product = new Product(editTextName.getText().toString(), price);
+                viewModel.withDao(dao -> dao.update(id, product, new OnSuccessListener<Boolean>() {
                     @Override
                     public void onSuccess(Boolean aBoolean) {
                         Toast.makeText(ProductActivity2.this, "Producto actualizado", Toast.LENGTH_SHORT).show();
                     }
-                });
+                }));
+            }
+        });
+    }
+
+    // Lee el precio del campo PrecioProduct; si no es un número válido avisa y devuelve null.
+    @Nullable
+    private Double readPrice() {
+        Double price = ProductCodec.parsePrice(editTextPrecio.getText().toString());
+        if (price == null) {
+            editTextPrecio.setError("Precio no válido");
+        }
+        return price;
+    }
+
+    /**
+     * Envía al adaptador los productos del modelo local: todos, o solo los que
+     * coinciden con el texto de búsqueda (ordenados por relevancia).
+     */
+    private void showProducts() {
+        showProducts(null);
+    }
+
+    // commitCallback se ejecuta cuando el adaptador ya muestra la nueva lista.
+    private void showProducts(@Nullable Runnable commitCallback) {
+        String query = editTextSearch.getText().toString();
+        if (query.trim().isEmpty()) {
+            userAdapter.submitList(productStore.snapshot(), commitCallback);
+        } else {
+            userAdapter.submitList(productStore.search(query, SEARCH_LIMIT), commitCallback);
+        }
+    }
+
+    /**
+     * Con resultados de búsqueda no se piden más páginas: son pocos ítems, así
+     * que cada enlace estaría cerca del final y cada tecla leería otra página
+     * hasta cargar la colección entera. Al borrar la búsqueda se vuelve al
+     * cursor del ViewModel.
+     */
+    private void updateHasMore() {
+        userAdapter.setHasMore(!searching && viewModel.hasMore());
+    }
+
+    @Override
+    public void onPageLoaded(int count) {
+        updateHasMore();
+        showProducts();
+
+        // Solo el número de productos: las métricas completas se guardan en onStop (METRICS_FILE).
+        Log.d("ProductActivity2", "Leídos " + count + " productos");
+    }
+
+    @Override
+    public void onSnapshotShown(int count) {
+        // Sin cursor todavía: no se piden más páginas hasta que llegue la primera.
+        userAdapter.setHasMore(false);
+        showProducts();
+        Log.d("ProductActivity2", "Copia en disco: " + count + " productos");
+    }
+
+    @Override
+    public void onProductsChanged() {
+        showProducts();
+    }
+
+    @Override
+    public void onLoadMoreFailed() {
+        userAdapter.onLoadMoreFailed();
+    }
+
+    // Envía las ediciones pendientes (si el modo write-behind está activo) al salir
+    // de la pantalla para no perderlas, guarda la posición de scroll en el ViewModel
+    // por si la actividad se recrea y guarda en disco la lista, para mostrarla en el
+    // próximo arranque, y las métricas (en un hilo de fondo).
+    @Override
+    protected void onStop() {
+        super.onStop();
+        viewModel.setScrollState(recyclerView.getLayoutManager().onSaveInstanceState());
+        viewModel.saveSnapshot();
+        // Sin DAO todavía no hay ediciones pendientes ni métricas que guardar.
+        final ProductDao dao = viewModel.getProductDao();
+        if (dao == null) {
+            return;
+        }
+        dao.flush();
+        if (dao.getWriteBehindQueue() != null) {
+            Log.d("ProductActivity2", "write-behind: " + dao.getWriteBehindQueue());
+        }
+        final File metricsFile = new File(getFilesDir(), METRICS_FILE);
+        METRICS_EXECUTOR.execute(() -> {
+            try {
+                dao.getMetrics().writeJson(metricsFile);
+            } catch (IOException e) {
+                Log.e("ProductActivity2", "No se pudieron guardar las métricas", e);
             }
         });
     }
 
-    // Limpia la caché de la base de datos al destruir la actividad.
+    // La actividad deja de recibir avisos al destruirse. La escucha en tiempo real
+    // sigue en el ViewModel (para el giro) y se cancela en su onCleared.
     @Override
     protected void onDestroy() {
         super.onDestroy();
-        db.terminate();
-        db.clearPersistence();
+        viewModel.setListener(null);
     }
 }
@@ -0,0 +1,298 @@
+package com.example.quiz2android;
+
+import android.app.Application;
+import android.os.Parcelable;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.lifecycle.AndroidViewModel;
+
+import com.example.quiz2android.data.dao.CacheThenServerListener;
+import com.example.quiz2android.data.dao.ProductDao;
+import com.example.quiz2android.data.dao.ProductPage;
+import com.example.quiz2android.data.dao.ProductSnapshot;
+import com.example.quiz2android.data.model.Product;
+import com.example.quiz2android.data.model.ProductStore;
+import com.example.quiz2android.data.repository.ProductRepository;
+import com.google.android.gms.tasks.OnSuccessListener;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.ListenerRegistration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Explicación de la Clase ProductListViewModel
+ *
+ * Guarda el estado de la lista de ProductActivity2 fuera de la actividad.
+ * Al girar el dispositivo Android destruye y vuelve a crear la actividad,
+ * pero el ViewModel se conserva, así que la nueva actividad vuelve a pintar
+ * la lista desde memoria sin ninguna lectura a Firestore.
+ *
+ * Qué se conserva:
+ * productStore: los productos cargados (con su índice de búsqueda).
+ * lastSnapshot y hasMore: el cursor de paginación.
+ * scrollState: la posición de scroll del RecyclerView.
+ * Las escuchas en tiempo real (subscribe) de los productos cargados, una por
+ * página, que no se vuelven a registrar al girar.
+ *
+ * Las lecturas (readFirstPage, loadNextPage) se hacen aquí, de modo que una
+ * respuesta que llega durante el giro se guarda igualmente y la ve la nueva
+ * actividad. La actividad recibe los avisos a través de Listener, que debe
+ * quitar con setListener(null) al destruirse.
+ *
+ * Arranque en frío: al crearse, el ViewModel lee la copia en disco de la
+ * última lista mostrada (ProductRepository.loadSnapshot) y la entrega a la
+ * actividad con onSnapshotShown, sin esperar a Firestore. La copia guarda
+ * solo la primera página (saveSnapshot). Después lee la primera página; como el adaptador usa DiffUtil e IDs estables, al llegar
+ * los datos nuevos solo cambian las filas que de verdad cambiaron.
+ * Mientras se muestra la copia (isShowingSnapshot) no se piden más páginas,
+ * porque todavía no hay cursor. Si no hay copia en disco, la primera página
+ * se lee con getPageCacheThenServer y la de la caché local de Firestore se
+ * muestra igual que la copia mientras responde el servidor.
+ *
+ * El ProductDao compartido se pide a ProductRepository sin bloquear
+ * (getDao). Hasta que llega, las operaciones que lo necesitan esperan en
+ * withDao y se ejecutan en orden en cuanto está listo.
+ *
+ * onCleared (cuando la pantalla se cierra de verdad) cancela la escucha.
+ */
+public class ProductListViewModel extends AndroidViewModel {
+
+    // Número de productos que se leen de Firestore en cada página.
+    public static final int PAGE_SIZE = 20;
+
+    // Avisos para la actividad. Siempre se llaman en el hilo principal.
+    public interface Listener {
+        // Se cargó una página (la primera o una siguiente).
+        void onPageLoaded(int count);
+
+        // Llegaron cambios en tiempo real de los productos cargados.
+        void onProductsChanged();
+
+        void onLoadMoreFailed();
+
+        // Se muestra la copia guardada en disco mientras llega la primera página.
+        void onSnapshotShown(int count);
+    }
+
+    private final ProductRepository productRepository;
+    // null hasta que ProductRepository termina de inicializarse.
+    @Nullable
+    private ProductDao productDao;
+    private final List<OnSuccessListener<ProductDao>> pendingDaoActions = new ArrayList<>();
+    private final ProductStore productStore = new ProductStore();
+    // Cursor de paginación: último documento de la última página cargada.
+    private DocumentSnapshot lastSnapshot;
+    // Se incrementa en cada "Leer" para descartar páginas de lecturas anteriores.
+    private int readGeneration;
+    private boolean hasMore;
+    private boolean loaded;
+    private boolean showingSnapshot;
+    private Parcelable scrollState;
+    // Una escucha por página cargada, en el orden de las páginas.
+    private final List<ListenerRegistration> pageRegistrations = new ArrayList<>();
+    private Listener listener;
+
+    public ProductListViewModel(@NonNull Application application) {
+        super(application);
+        productRepository = ((QuizApplication) application).getProductRepository();
+        productRepository.getDao(this::onDaoReady);
+        productRepository.loadSnapshot(this::showSnapshot);
+    }
+
+    private void onDaoReady(ProductDao dao) {
+        productDao = dao;
+        List<OnSuccessListener<ProductDao>> actions = new ArrayList<>(pendingDaoActions);
+        pendingDaoActions.clear();
+        for (OnSuccessListener<ProductDao> action : actions) {
+            action.onSuccess(dao);
+        }
+    }
+
+    /**
+     * Ejecuta action con el ProductDao: al momento si ya está listo, o en
+     * cuanto lo esté. Se llama y se ejecuta en el hilo principal.
+     */
+    public void withDao(OnSuccessListener<ProductDao> action) {
+        if (productDao != null) {
+            action.onSuccess(productDao);
+        } else {
+            pendingDaoActions.add(action);
+        }
+    }
+
+    // Muestra la copia en disco si todavía no hay datos de Firestore, y después los pide.
+    private void showSnapshot(@Nullable ProductSnapshot snapshot) {
+        if (snapshot == null || snapshot.getProducts().isEmpty() || loaded) {
+            return;
+        }
+        showProvisional(snapshot.getProducts());
+        readFirstPage();
+    }
+
+    // Muestra productos que todavía no vienen del servidor (copia en disco o caché local).
+    private void showProvisional(List<Product> products) {
+        productStore.putAll(products);
+        loaded = true;
+        showingSnapshot = true;
+        if (listener != null) {
+            listener.onSnapshotShown(products.size());
+        }
+    }
+
+    // El ProductDao, o null si todavía no está listo (ver withDao).
+    @Nullable
+    public ProductDao getProductDao() {
+        return productDao;
+    }
+
+    public ProductStore getProductStore() {
+        return productStore;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+
+    // true si ya hay productos (una página leída o la copia en disco); la actividad puede pintar la lista sin leer.
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    // true mientras la lista es la copia en disco y todavía no llegó la primera página.
+    public boolean isShowingSnapshot() {
+        return showingSnapshot;
+    }
+
+    /**
+     * Guarda en disco (en segundo plano) la primera página de la lista actual,
+     * si viene de Firestore. Solo la primera: al volver a abrir la app, la
+     * primera página leída reemplaza a la copia, y una copia más larga haría
+     * que la lista se encogiera de golpe a una página.
+     */
+    public void saveSnapshot() {
+        if (loaded && !showingSnapshot) {
+            List<Product> products = productStore.snapshot();
+            productRepository.saveSnapshot(products.size() > PAGE_SIZE
+                    ? new ArrayList<>(products.subList(0, PAGE_SIZE)) : products);
+        }
+    }
+
+    public void setListener(@Nullable Listener listener) {
+        this.listener = listener;
+    }
+
+    @Nullable
+    public Parcelable getScrollState() {
+        return scrollState;
+    }
+
+    public void setScrollState(@Nullable Parcelable scrollState) {
+        this.scrollState = scrollState;
+    }
+
+    /**
+     * Lee la primera página y reinicia con ella el modelo local. Usa la página
+     * que MainActivity empezó a leer si sigue siendo actual.
+     */
+    public void readFirstPage() {
+        final int generation = ++readGeneration;
+        OnSuccessListener<ProductPage> onFirstPage = page -> {
+            if (page == null || generation != readGeneration) {
+                return;
+            }
+            lastSnapshot = page.getLastSnapshot();
+            hasMore = page.hasMore();
+            loaded = true;
+            showingSnapshot = false;
+            scrollState = null;
+            productStore.clear();
+            productStore.putAll(page.getProducts());
+            removePageListeners();
+            listenToPage(null, page);
+            if (listener != null) {
+                listener.onPageLoaded(page.getProducts().size());
+            }
+        };
+        if (productRepository.takeFirstPage(PAGE_SIZE, onFirstPage)) {
+            return;
+        }
+        // Sin prelectura: si todavía no se muestra nada, se pinta la página de la
+        // caché local como la copia en disco (sin cursor) mientras llega la del servidor.
+        withDao(dao -> dao.getPageCacheThenServer(PAGE_SIZE, null, new CacheThenServerListener<ProductPage>() {
+            @Override
+            public void onCached(ProductPage page) {
+                if (generation == readGeneration && !loaded) {
+                    showProvisional(page.getProducts());
+                }
+            }
+
+            @Override
+            public void onServer(@Nullable ProductPage page) {
+                onFirstPage.onSuccess(page);
+            }
+        }));
+    }
+
+    // Pide la página que sigue a lastSnapshot y la añade al modelo local.
+    public void loadNextPage() {
+        final int generation = readGeneration;
+        final DocumentSnapshot cursor = lastSnapshot;
+        withDao(dao -> dao.getPage(PAGE_SIZE, cursor, page -> {
+            // Ignora la respuesta si mientras tanto se pulsó "Leer" otra vez.
+            if (generation != readGeneration) {
+                return;
+            }
+            if (page == null) {
+                if (listener != null) {
+                    listener.onLoadMoreFailed();
+                }
+                return;
+            }
+            DocumentSnapshot previous = lastSnapshot;
+            if (page.getLastSnapshot() != null) {
+                lastSnapshot = page.getLastSnapshot();
+            }
+            hasMore = page.hasMore();
+            productStore.putAll(page.getProducts());
+            listenToPage(previous, page);
+            if (listener != null) {
+                listener.onPageLoaded(page.getProducts().size());
+            }
+        }));
+    }
+
+    /**
+     * Escucha en tiempo real los productos de la página recién cargada: desde
+     * después de previous (el cursor de la página anterior) hasta su último
+     * documento. Las escuchas de las páginas anteriores se conservan, así que
+     * cargar una página no vuelve a leer las demás. Solo llegan los cambios
+     * (altas, modificaciones y bajas), que se aplican al modelo local y de ahí
+     * al adaptador. La última página (sin más después) se escucha hasta el
+     * final de la colección para ver también los productos nuevos.
+     */
+    private void listenToPage(@Nullable DocumentSnapshot previous, ProductPage page) {
+        DocumentSnapshot endAt = page.hasMore() ? page.getLastSnapshot() : null;
+        withDao(dao -> pageRegistrations.add(dao.subscribe(previous, endAt, productStore, changes -> {
+            if (listener != null) {
+                listener.onProductsChanged();
+            }
+        })));
+    }
+
+    private void removePageListeners() {
+        for (ListenerRegistration registration : pageRegistrations) {
+            registration.remove();
+        }
+        pageRegistrations.clear();
+    }
+
+    // La pantalla se cerró de verdad (no es un giro): se deja de escuchar.
+    @Override
+    protected void onCleared() {
+        removePageListeners();
+        pendingDaoActions.clear();
+        listener = null;
+    }
+}
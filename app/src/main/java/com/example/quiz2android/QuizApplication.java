@@ -0,0 +1,60 @@
+package com.example.quiz2android;
+
+import android.app.Application;
+
+import com.example.quiz2android.data.repository.ProductRepository;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreSettings;
+import com.google.firebase.firestore.PersistentCacheSettings;
+
+import java.io.File;
+
+/**
+ * Explicación de la Clase QuizApplication
+ *
+ * Es la clase Application de la app: se crea una sola vez por proceso, antes
+ * que cualquier actividad. Aquí se configura Firestore para todo el proceso,
+ * con persistencia local en disco limitada a firestore_cache_size_mb (ver
+ * res/values/integers.xml).
+ *
+ * Así la caché local sobrevive entre pantallas y entre aperturas de la app,
+ * y ProductDao puede pintar la lista desde el disco
+ * (getPageCacheThenServer) mientras llega la respuesta del servidor.
+ *
+ * La configuración se aplica aquí, en el hilo principal y antes que nada,
+ * porque setFirestoreSettings lanza IllegalStateException si Firestore ya se
+ * usó; aplicarla en otro hilo competiría con el primer uso.
+ *
+ * También crea el ProductRepository de toda la app, que se inicializa en un
+ * hilo de fondo mientras se abre la primera pantalla. Las actividades lo
+ * obtienen con getProductRepository(). El repositorio guarda en
+ * PRODUCT_SNAPSHOT_FILE la última lista mostrada, para pintarla al volver a
+ * abrir la app.
+ */
+public class QuizApplication extends Application {
+
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+    // Archivo (en getFilesDir()) con la última lista de productos mostrada.
+    private static final String PRODUCT_SNAPSHOT_FILE = "products.snapshot";
+
+    private final ProductRepository productRepository = new ProductRepository();
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        long cacheSizeBytes = getResources().getInteger(R.integer.firestore_cache_size_mb) * BYTES_PER_MB;
+        FirebaseFirestoreSettings settings = new FirebaseFirestoreSettings.Builder()
+                .setLocalCacheSettings(PersistentCacheSettings.newBuilder()
+                        .setSizeBytes(cacheSizeBytes)
+                        .build())
+                .build();
+        FirebaseFirestore.getInstance().setFirestoreSettings(settings);
+        productRepository.start(runnable -> new Thread(runnable, "ProductRepository-init").start(),
+                new File(getFilesDir(), PRODUCT_SNAPSHOT_FILE));
+    }
+
+    public ProductRepository getProductRepository() {
+        return productRepository;
+    }
+}
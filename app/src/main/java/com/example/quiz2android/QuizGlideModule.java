@@ -0,0 +1,59 @@
+package com.example.quiz2android;
+
+import android.content.Context;
+import android.content.res.Resources;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.GlideBuilder;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruBitmapPool;
+import com.bumptech.glide.load.engine.cache.InternalCacheDiskCacheFactory;
+import com.bumptech.glide.load.engine.cache.LruResourceCache;
+import com.bumptech.glide.module.AppGlideModule;
+
+/**
+ * Explicación de la Clase QuizGlideModule
+ *
+ * Configura Glide, que carga las miniaturas de los productos en
+ * ProductAdapter. Glide lo encuentra al arrancar gracias a la anotación
+ * @GlideModule (el procesador de anotaciones de Glide genera el código que lo
+ * registra).
+ *
+ * Los tamaños de las cachés se fijan aquí en lugar de dejar que Glide los
+ * calcule según la pantalla, para que la memoria que usan las imágenes esté
+ * acotada aunque el catálogo tenga miles de productos con imagen
+ * (ver res/values/integers.xml):
+ *
+ * image_memory_cache_mb: miniaturas ya decodificadas, listas para pintarse al
+ * volver a un ítem sin decodificar otra vez.
+ * image_bitmap_pool_mb: bitmaps que salen de la pantalla y se reutilizan para
+ * decodificar los siguientes, así el scroll no crea bitmaps nuevos ni provoca
+ * recolecciones de basura.
+ * image_disk_cache_mb: miniaturas en disco (en getCacheDir(), que el sistema
+ * puede vaciar), para no descargarlas otra vez al volver a abrir la app.
+ */
+@GlideModule
+public final class QuizGlideModule extends AppGlideModule {
+
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+    // Carpeta dentro de getCacheDir() para la caché de disco.
+    private static final String DISK_CACHE_DIRECTORY = "product_thumbnails";
+
+    @Override
+    public void applyOptions(@NonNull Context context, @NonNull GlideBuilder builder) {
+        Resources resources = context.getResources();
+        builder.setMemoryCache(new LruResourceCache(
+                resources.getInteger(R.integer.image_memory_cache_mb) * BYTES_PER_MB));
+        builder.setBitmapPool(new LruBitmapPool(
+                resources.getInteger(R.integer.image_bitmap_pool_mb) * BYTES_PER_MB));
+        builder.setDiskCache(new InternalCacheDiskCacheFactory(context, DISK_CACHE_DIRECTORY,
+                resources.getInteger(R.integer.image_disk_cache_mb) * BYTES_PER_MB));
+    }
+
+    // No hay módulos declarados en el manifiesto: se evita recorrerlo al arrancar.
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+}
@@ -3,16 +3,33 @@ package com.example.quiz2android.data.adapter;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.graphics.drawable.Drawable;
+import android.util.LongSparseArray;
+import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.appcompat.widget.AppCompatTextView;
+import androidx.core.text.PrecomputedTextCompat;
+import androidx.core.widget.TextViewCompat;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.bumptech.glide.ListPreloader;
+import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.RequestManager;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.request.RequestOptions;
 import com.example.quiz2android.R;
 import com.example.quiz2android.data.model.Product;
 import com.google.android.gms.tasks.OnSuccessListener;
 
+import java.text.NumberFormat;
+import java.util.Collections;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Este adaptador es una clase que permite gestionar y mostrar una lista de productos
@@ -22,23 +39,199 @@ import java.util.List;
 
 
     /**
-     * Esta clase extiende RecyclerView.Adapter, lo cual permite que el
-     * RecyclerView maneje y muestre elementos en la pantalla de manera
-     * eficiente. La clase incluye dos propiedades:
+     * Esta clase extiende ListAdapter, que a su vez usa AsyncListDiffer: cada
+     * vez que se envía una lista nueva con submitList, la diferencia con la
+     * lista anterior se calcula en un hilo de fondo y solo se vuelven a enlazar
+     * los ítems insertados, eliminados o modificados. Así el mismo adaptador
+     * (y sus ViewHolders) se reutiliza en cada actualización. La clase incluye:
      *
-     * userList: Una lista de objetos Product que contiene los datos que
-     * se van a mostrar.
+     * DIFF_CALLBACK: compara productos por su ID y por su contenido.
+     * glide y thumbnailOptions: cargan la miniatura de cada producto.
      * listener: Un OnSuccessListener que permite gestionar eventos
      * cuando el usuario interactúa con un producto, en este caso,
      * al hacer clic en un elemento de la lista.
+     *
+     * También es el PreloadModelProvider de Glide: un RecyclerViewPreloader
+     * (ver ProductActivity2) le pide las imágenes de los ítems que van a
+     * aparecer al hacer scroll y las carga antes de que se vean.
      */
-    public class ProductAdapter extends RecyclerView.Adapter<ProductAdapter.UserViewHolder> {
-        private List<Product> userList;
+    public class ProductAdapter extends ListAdapter<Product, ProductAdapter.UserViewHolder>
+            implements ListPreloader.PreloadModelProvider<Product> {
+
+        /**
+         * Número de ítems antes del final de la lista a partir del cual se pide
+         * la página siguiente, para que llegue antes de que el usuario la vea.
+         */
+        private static final int LOAD_MORE_THRESHOLD = 5;
+
+        /**
+         * Nombres con más caracteres que este valor se miden (PrecomputedTextCompat)
+         * en un hilo de fondo; los cortos se asignan directamente, que es más barato.
+         */
+        private static final int PRECOMPUTE_MIN_LENGTH = 40;
+
+        /**
+         * Máximo de precios ya formateados que se guardan. Los precios se
+         * repiten mucho entre productos; si se llega al máximo, se vacía y se
+         * vuelve a llenar con los que se muestren.
+         */
+        private static final int PRICE_CACHE_SIZE = 512;
+
+        /**
+         * Dos productos son el mismo ítem si tienen el mismo ID de documento, y
+         * su contenido es el mismo si coinciden el nombre, el precio y la imagen.
+         */
+        private static final DiffUtil.ItemCallback<Product> DIFF_CALLBACK = new DiffUtil.ItemCallback<Product>() {
+            @Override
+            public boolean areItemsTheSame(@NonNull Product oldItem, @NonNull Product newItem) {
+                if (oldItem.getId() == null || newItem.getId() == null) {
+                    return oldItem == newItem;
+                }
+                return oldItem.getId().equals(newItem.getId());
+            }
+
+            @Override
+            public boolean areContentsTheSame(@NonNull Product oldItem, @NonNull Product newItem) {
+                return Objects.equals(oldItem.getname(), newItem.getname())
+                        && Double.compare(oldItem.getPrice(), newItem.getPrice()) == 0
+                        && Objects.equals(oldItem.getImageUrl(), newItem.getImageUrl());
+            }
+        };
+
+        // Un solo formateador de precios para todo el adaptador (hasta 2 decimales).
+        private final NumberFormat priceFormat = NumberFormat.getNumberInstance();
+        // Texto de cada precio ya formateado, por su valor en centésimas (sin crear objetos al buscar).
+        private final LongSparseArray<String> formattedPrices = new LongSparseArray<>();
+        private final RequestManager glide;
+        private final RequestOptions thumbnailOptions;
         private OnSuccessListener<Product> listener;
+        private OnLoadMoreListener loadMoreListener;
+        private boolean hasMore;
+        private boolean loading;
 
-        public ProductAdapter(List<Product> userList, OnSuccessListener<Product> listener) {
-            this.userList = userList;
+        /**
+         * glide: el RequestManager de la actividad (Glide.with(activity)), que
+         * pausa y cancela las cargas con su ciclo de vida.
+         * thumbnailSizePx: lado en píxeles de la miniatura (R.dimen.product_thumbnail_size).
+         * Las imágenes se decodifican exactamente a ese tamaño, y no al de la
+         * imagen original, así cada miniatura ocupa lo mismo en memoria sin
+         * importar lo grande que sea el archivo.
+         */
+        public ProductAdapter(RequestManager glide, int thumbnailSizePx, OnSuccessListener<Product> listener) {
+            super(DIFF_CALLBACK);
+            this.glide = glide;
             this.listener = listener;
+            // Las mismas opciones al enlazar y al precargar: si difieren, la precarga no acierta en la caché.
+            // RGB_565 usa la mitad de memoria que ARGB_8888 (Glide usa ARGB si la imagen tiene transparencia).
+            this.thumbnailOptions = new RequestOptions()
+                    .override(thumbnailSizePx)
+                    .centerCrop()
+                    .format(DecodeFormat.PREFER_RGB_565)
+                    .placeholder(R.drawable.product_thumbnail_placeholder)
+                    .fallback(R.drawable.product_thumbnail_placeholder);
+            priceFormat.setMaximumFractionDigits(2);
+            // Cada producto conserva su ID de ítem aunque cambie de posición.
+            setHasStableIds(true);
+        }
+
+        /**
+         * ID estable del ítem a partir del ID de documento del producto (hash
+         * FNV-1a de 64 bits, sin crear objetos). Los productos sin ID, que aún
+         * no se han guardado, usan su identidad.
+         */
+        @Override
+        public long getItemId(int position) {
+            Product product = getItem(position);
+            String id = product.getId();
+            if (id == null) {
+                return System.identityHashCode(product);
+            }
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < id.length(); i++) {
+                hash ^= id.charAt(i);
+                hash *= 0x100000001b3L;
+            }
+            return hash;
+        }
+
+        /**
+         * Interfaz que el adaptador usa para pedir la página siguiente cuando el
+         * usuario se acerca al final de la lista (scroll infinito).
+         */
+        public interface OnLoadMoreListener {
+            void onLoadMore();
+        }
+
+        public void setOnLoadMoreListener(OnLoadMoreListener loadMoreListener) {
+            this.loadMoreListener = loadMoreListener;
+        }
+
+        /**
+         * Se llama cuando llega una página: indica si puede haber más páginas y
+         * permite volver a pedir la siguiente. La lista se envía con submitList;
+         * el diff se calcula en segundo plano, así que los productos que no
+         * cambian conservan su ViewHolder.
+         */
+        public void setHasMore(boolean hasMore) {
+            this.hasMore = hasMore;
+            this.loading = false;
+        }
+
+        /**
+         * Se llama si la carga de una página falla, para permitir reintentarla
+         * la próxima vez que el usuario llegue al final.
+         */
+        public void onLoadMoreFailed() {
+            this.loading = false;
+        }
+
+        /**
+         * Se llama al empezar una lectura desde la primera página ("Leer"): la
+         * respuesta de la página siguiente que estuviera en curso se descarta
+         * (ver ProductListViewModel), así que se permite volver a pedirla.
+         */
+        public void resetLoadMore() {
+            this.loading = false;
+        }
+
+        /**
+         * Texto del precio, formateado una sola vez por valor: al enlazar un
+         * precio que ya se mostró no se crea ningún String ni se usa
+         * NumberFormat. Solo se usa en el hilo principal.
+         */
+        private String formatPrice(double price) {
+            long cents = Math.round(price * 100);
+            String text = formattedPrices.get(cents);
+            if (text == null) {
+                if (formattedPrices.size() >= PRICE_CACHE_SIZE) {
+                    formattedPrices.clear();
+                }
+                text = priceFormat.format(cents / 100.0);
+                formattedPrices.put(cents, text);
+            }
+            return text;
+        }
+
+        // Petición de la miniatura de un producto; con imageUrl null Glide muestra el fallback.
+        private RequestBuilder<Drawable> thumbnailRequest(@Nullable String imageUrl) {
+            return glide.load(imageUrl).apply(thumbnailOptions);
+        }
+
+        /**
+         * PreloadModelProvider: imágenes que hay que precargar para el ítem de
+         * la posición dada (ninguna si el producto no tiene imagen).
+         */
+        @NonNull
+        @Override
+        public List<Product> getPreloadItems(int position) {
+            Product product = getItem(position);
+            return product.getImageUrl() != null ? Collections.singletonList(product) : Collections.<Product>emptyList();
+        }
+
+        @Nullable
+        @Override
+        public RequestBuilder<?> getPreloadRequestBuilder(@NonNull Product product) {
+            return thumbnailRequest(product.getImageUrl());
         }
 
 
@@ -66,45 +259,61 @@ import java.util.List;
      * (ViewHolder) correspondiente. Aquí:
      *
      * Se obtiene el Product en la posición actual de la lista
-     * (userList.get(position)).
+     * (getItem(position)).
      *
-     * Se establece el nombre y la contraseña del producto en los TextView
-     * correspondientes dentro del ViewHolder.
+     * Se establece el nombre y el precio del producto en los TextView
+     * correspondientes dentro del ViewHolder. El texto de cada precio se
+     * formatea una sola vez (formatPrice) y luego se reutiliza.
      *
-     * Se configura un OnClickListener en el ítem para que cuando se haga
-     * clic, se llame al listener.onSuccess(user), permitiendo realizar
+     * El OnClickListener del ítem se crea una sola vez por ViewHolder (en su
+     * constructor) y busca el producto por la posición actual al hacer clic,
+     * así que enlazar un ítem durante el scroll no crea objetos nuevos. Al
+     * hacer clic se llama a listener.onSuccess(user), permitiendo realizar
      * una acción, como mostrar un mensaje o abrir otra pantalla con
      * información detallada del producto.
+     *
+     * Los nombres largos se miden en un hilo de fondo con PrecomputedTextCompat
+     * (setTextFuture), para no hacer ese trabajo en el hilo principal.
+     *
+     * La miniatura se pide a Glide, que la descarga y decodifica en sus hilos;
+     * si ya se precargó, sale de la caché de memoria sin esperar.
      */
 
 
     @Override
     public void onBindViewHolder(@NonNull ProductAdapter.UserViewHolder holder, int position) {
-        Product user = userList.get(position);
-        holder.userNameTextView.setText(user.getname());
-        holder.userEmailTextView.setText(user.getPassword());
+        Product user = getItem(position);
+        String name = user.getname();
+        if (name != null && name.length() > PRECOMPUTE_MIN_LENGTH) {
+            holder.userNameTextView.setTextFuture(PrecomputedTextCompat.getTextFuture(
+                    name, TextViewCompat.getTextMetricsParams(holder.userNameTextView), null));
+        } else {
+            // Cancela el texto precalculado que quedara pendiente de un enlace
+            // anterior de este ViewHolder, para que no reemplace al nombre corto.
+            holder.userNameTextView.setTextFuture(null);
+            holder.userNameTextView.setText(name);
+        }
+        holder.userEmailTextView.setText(formatPrice(user.getPrice()));
+        thumbnailRequest(user.getImageUrl()).into(holder.thumbnailImageView);
 
-        holder.itemView.setOnClickListener(new View.OnClickListener() {
-            @Override
-            public void onClick(View view) {
-                listener.onSuccess(user);
-            }
-        });
+        // Scroll infinito: al acercarse al final se pide la página siguiente una sola vez.
+        if (loadMoreListener != null && hasMore && !loading
+                && position >= getItemCount() - LOAD_MORE_THRESHOLD) {
+            loading = true;
+            loadMoreListener.onLoadMore();
+        }
     }
 
-/**
- *
- *   4. Método getItemCount
- *
- * Este método devuelve el número de elementos en userList.
- * Es necesario para que el RecyclerView sepa cuántos elementos debe mostra
- *
- * */
-
-
+    /**
+     * 4. Método onViewRecycled
+     * Cuando un ítem sale de la pantalla se cancela la carga de su miniatura y
+     * su bitmap vuelve al pool de Glide para reutilizarse, así la memoria de
+     * las imágenes no crece con el número de productos recorridos.
+     */
     @Override
-    public int getItemCount() {
-        return userList.size();
+    public void onViewRecycled(@NonNull ProductAdapter.UserViewHolder holder) {
+        super.onViewRecycled(holder);
+        glide.clear(holder.thumbnailImageView);
     }
 
     /**
@@ -115,21 +324,38 @@ import java.util.List;
      *
      * TextView userNameTextView y TextView userEmailTextView: Son referencias
      * a los elementos visuales (textos) dentro de cada ítem. Se usan para mostrar
-     * el nombre y la contraseña del producto.
+     * el nombre y el precio del producto.
+     * ImageView thumbnailImageView: la miniatura del producto, de tamaño fijo.
      * En el constructor, se inicializan estas variables buscando los elementos de
      * item_product.xml por su ID (R.id.usernameTextView y R.id.passwordTextView).
+     * El nombre es un AppCompatTextView (la actividad usa AppCompat) para poder
+     * recibir texto precalculado con setTextFuture. También se registra aquí,
+     * una sola vez, el OnClickListener del ítem.
      *          *
      *          */
 
 
     public class UserViewHolder extends RecyclerView.ViewHolder {
-        private TextView userNameTextView;
+        private AppCompatTextView userNameTextView;
         private TextView userEmailTextView;
+        private ImageView thumbnailImageView;
 
         public UserViewHolder(@NonNull View itemView) {
             super(itemView);
+            thumbnailImageView = itemView.findViewById(R.id.thumbnailImageView);
             userNameTextView = itemView.findViewById(R.id.usernameTextView);
             userEmailTextView = itemView.findViewById(R.id.passwordTextView);
+
+            // Un único listener por ViewHolder: el producto se busca al hacer clic.
+            itemView.setOnClickListener(new View.OnClickListener() {
+                @Override
+                public void onClick(View view) {
+                    int position = getBindingAdapterPosition();
+                    if (position != RecyclerView.NO_POSITION) {
+                        listener.onSuccess(getItem(position));
+                    }
+                }
+            });
         }
     }
 }
@@ -141,8 +367,11 @@ import java.util.List;
  * Para cada producto en la lista:
  *
  * onCreateViewHolder crea una nueva vista para el producto.
- * onBindViewHolder asigna los datos del producto a la vista.
- * getItemCount indica cuántos productos hay en la lista.
+ * onBindViewHolder asigna los datos del producto a la vista y pide su
+ * miniatura a Glide, que se precarga antes de que el ítem aparezca.
+ * ListAdapter lleva la cuenta de los productos y calcula en segundo plano
+ * qué ítems cambiaron cada vez que se envía una lista nueva.
+ * Cuando el usuario llega cerca del final, se pide la página siguiente.
  * Cada vez que se hace clic en un elemento del RecyclerView, el listener
  * recibe el objeto Product correspondiente, permitiendo ejecutar una acción relacionada.
  *
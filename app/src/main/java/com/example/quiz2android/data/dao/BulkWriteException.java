@@ -0,0 +1,25 @@
+package com.example.quiz2android.data.dao;
+
+/**
+ * Explicación de la Clase BulkWriteException
+ *
+ * Excepción con la que terminan los futuros de insertAllAsync, updateAllAsync
+ * y deleteAllAsync cuando al menos un lote falla. Como los lotes se confirman
+ * por separado, algunos pueden haberse escrito: getResult devuelve el
+ * resultado completo (qué lotes se escribieron y cuáles no), y la causa es el
+ * error del primer lote que falló.
+ */
+public class BulkWriteException extends Exception {
+
+    private final BulkWriteResult result;
+
+    public BulkWriteException(BulkWriteResult result, Throwable cause) {
+        super(result.getFailedCount() + " de " + (result.getWrittenCount() + result.getFailedCount())
+                + " documentos sin escribir", cause);
+        this.result = result;
+    }
+
+    public BulkWriteResult getResult() {
+        return result;
+    }
+}
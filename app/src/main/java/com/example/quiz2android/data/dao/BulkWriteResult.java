@@ -0,0 +1,104 @@
+package com.example.quiz2android.data.dao;
+
+import androidx.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Explicación de la Clase BulkWriteResult
+ *
+ * Es el resultado de una operación masiva de ProductDao (insertAll, updateAll
+ * o deleteAll). Las operaciones se dividen en lotes (WriteBatch) y cada lote
+ * se confirma por separado, así que el resultado guarda:
+ *
+ * chunks: el resultado de cada lote (IDs incluidos, éxito o error).
+ * elapsedMillis: el tiempo total de la operación.
+ * getDocumentsPerSecond: el rendimiento total, contando solo los lotes que
+ * se escribieron con éxito.
+ */
+public class BulkWriteResult {
+
+    /**
+     * Resultado de un lote: su posición, los IDs de documento que contenía y,
+     * si falló, la excepción devuelta por Firestore.
+     */
+    public static class Chunk {
+        private final int index;
+        private final List<String> ids;
+        private final Exception error;
+
+        public Chunk(int index, List<String> ids, @Nullable Exception error) {
+            this.index = index;
+            this.ids = ids;
+            this.error = error;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public List<String> getIds() {
+            return ids;
+        }
+
+        public boolean isSuccessful() {
+            return error == null;
+        }
+
+        @Nullable
+        public Exception getError() {
+            return error;
+        }
+    }
+
+    private final List<Chunk> chunks;
+    private final long elapsedMillis;
+
+    public BulkWriteResult(List<Chunk> chunks, long elapsedMillis) {
+        this.chunks = Collections.unmodifiableList(chunks);
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public List<Chunk> getChunks() {
+        return chunks;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public boolean isSuccessful() {
+        for (Chunk chunk : chunks) {
+            if (!chunk.isSuccessful()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Número de documentos escritos en los lotes que terminaron con éxito.
+    public int getWrittenCount() {
+        int count = 0;
+        for (Chunk chunk : chunks) {
+            if (chunk.isSuccessful()) {
+                count += chunk.getIds().size();
+            }
+        }
+        return count;
+    }
+
+    public int getFailedCount() {
+        int count = 0;
+        for (Chunk chunk : chunks) {
+            if (!chunk.isSuccessful()) {
+                count += chunk.getIds().size();
+            }
+        }
+        return count;
+    }
+
+    public double getDocumentsPerSecond() {
+        return elapsedMillis > 0 ? getWrittenCount() * 1000.0 / elapsedMillis : getWrittenCount();
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.quiz2android.data.dao;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Explicación de la Interfaz CacheThenServerListener
+ *
+ * Listener de las lecturas en dos etapas de ProductDao
+ * (getPageCacheThenServer). A diferencia de OnSuccessListener, cada etapa
+ * tiene su propio método, así quien lee sabe si el resultado es el
+ * definitivo. Los dos se llaman en el hilo principal.
+ *
+ * onCached: lo que había en la caché local de Firestore, que puede estar
+ * desactualizado. Se llama como mucho una vez, solo si la caché tenía datos
+ * y el servidor todavía no había respondido.
+ * onServer: el resultado del servidor, o null si la lectura falló. Se llama
+ * siempre, una sola vez, después de onCached si lo hubo.
+ */
+public interface CacheThenServerListener<T> {
+
+    void onCached(T value);
+
+    void onServer(@Nullable T value);
+}
@@ -0,0 +1,92 @@
+package com.example.quiz2android.data.dao;
+
+import java.util.Random;
+
+/**
+ * Explicación de la Clase CallOptions
+ *
+ * Límites de tiempo y reintentos de una lectura de ProductDao
+ * (getById y getAll con CallOptions).
+ *
+ * deadlineMillis: tiempo máximo de toda la llamada, reintentos incluidos. Al
+ * cumplirse, el resultado es ProductResult.Status.TIMEOUT aunque Firestore
+ * todavía no haya respondido.
+ * maxAttempts: número máximo de peticiones al servidor (1 = sin reintentos).
+ * Solo se reintentan los errores transitorios (servidor no disponible,
+ * tiempo agotado, cuota agotada o transacción abortada).
+ * initialBackoffMillis y maxBackoffMillis: la espera antes del reintento n es
+ * un valor al azar entre 0 y min(maxBackoffMillis, initialBackoffMillis * 2^n)
+ * ("full jitter"), para que muchos clientes no reintenten a la vez.
+ * hedgeAfterMillis: lectura cubierta. Si el servidor no respondió en este
+ * tiempo, se lee también la caché local de Firestore y, si tiene datos, se
+ * entrega ese resultado sin esperar más. -1 la desactiva. Solo la usa
+ * getById: getAll la ignora, porque la caché puede no tener la colección entera.
+ *
+ * Los objetos son inmutables: los métodos with... devuelven una copia.
+ */
+public final class CallOptions {
+
+    public static final long NO_HEDGE = -1;
+
+    // 10 s en total, hasta 3 intentos, esperas de 200 ms a 2 s y sin lectura cubierta.
+    public static final CallOptions DEFAULT = new CallOptions(10_000, 3, 200, 2_000, NO_HEDGE);
+
+    private final long deadlineMillis;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final long hedgeAfterMillis;
+
+    public CallOptions(long deadlineMillis, int maxAttempts, long initialBackoffMillis, long maxBackoffMillis,
+                       long hedgeAfterMillis) {
+        if (deadlineMillis <= 0 || maxAttempts < 1 || initialBackoffMillis < 0 || maxBackoffMillis < initialBackoffMillis) {
+            throw new IllegalArgumentException("Opciones no válidas");
+        }
+        this.deadlineMillis = deadlineMillis;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+        this.hedgeAfterMillis = hedgeAfterMillis;
+    }
+
+    public CallOptions withDeadline(long deadlineMillis) {
+        return new CallOptions(deadlineMillis, maxAttempts, initialBackoffMillis, maxBackoffMillis, hedgeAfterMillis);
+    }
+
+    public CallOptions withMaxAttempts(int maxAttempts) {
+        return new CallOptions(deadlineMillis, maxAttempts, initialBackoffMillis, maxBackoffMillis, hedgeAfterMillis);
+    }
+
+    public CallOptions withBackoff(long initialBackoffMillis, long maxBackoffMillis) {
+        return new CallOptions(deadlineMillis, maxAttempts, initialBackoffMillis, maxBackoffMillis, hedgeAfterMillis);
+    }
+
+    public CallOptions withHedgeAfter(long hedgeAfterMillis) {
+        return new CallOptions(deadlineMillis, maxAttempts, initialBackoffMillis, maxBackoffMillis, hedgeAfterMillis);
+    }
+
+    public long getDeadlineMillis() {
+        return deadlineMillis;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public long getHedgeAfterMillis() {
+        return hedgeAfterMillis;
+    }
+
+    public boolean isHedged() {
+        return hedgeAfterMillis >= 0;
+    }
+
+    // Espera antes del reintento número retry (0 para el primero), con jitter.
+    public long backoffMillis(int retry, Random random) {
+        long ceiling = initialBackoffMillis << Math.min(retry, 30);
+        if (ceiling <= 0 || ceiling > maxBackoffMillis) {
+            ceiling = maxBackoffMillis;
+        }
+        return (long) (random.nextDouble() * ceiling);
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.quiz2android.data.dao;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.google.android.gms.tasks.OnSuccessListener;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.Source;
+
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * Explicación de la Clase DeadlineRead
+ *
+ * Ejecuta una lectura de ProductDao con las reglas de CallOptions y entrega
+ * un único ProductResult (OK, TIMEOUT o ERROR; ProductDao decide NOT_FOUND).
+ *
+ * Cómo funciona:
+ * start programa el plazo (deadline) en scheduler y lanza la primera lectura
+ * del servidor.
+ * Si el servidor falla con un error transitorio y quedan intentos y tiempo,
+ * programa otro intento tras la espera de CallOptions.backoffMillis.
+ * Si la lectura está cubierta (hedgeAfterMillis), al cumplirse ese tiempo
+ * lee también la caché local; si tiene datos, termina con ellos.
+ * Lo primero que ocurra (respuesta, error definitivo, caché o plazo) termina
+ * la llamada; lo que llegue después se ignora. Firestore no permite cancelar
+ * un get(), así que una petición lenta sigue en curso, pero su resultado ya
+ * no se entrega (sí actualiza la caché local de Firestore).
+ *
+ * El listener se llama una sola vez, en executor (o en scheduler si termina
+ * por el plazo).
+ */
+final class DeadlineRead<S> {
+
+    private static final String TAG = "Quiz 2 Android";
+
+    private final Function<Source, Task<S>> fetch;
+    private final Predicate<S> hasData;
+    private final CallOptions options;
+    private final ScheduledExecutorService scheduler;
+    private final Executor executor;
+    private final OnSuccessListener<ProductResult<S>> listener;
+    private final Random random;
+    private final AtomicBoolean finished = new AtomicBoolean();
+    private final AtomicInteger attempts = new AtomicInteger();
+    private final long startMillis = SystemClock.elapsedRealtime();
+    private ScheduledFuture<?> deadline;
+    private ScheduledFuture<?> hedge;
+
+    DeadlineRead(Function<Source, Task<S>> fetch, Predicate<S> hasData, CallOptions options,
+                 ScheduledExecutorService scheduler, Executor executor, Random random,
+                 OnSuccessListener<ProductResult<S>> listener) {
+        this.fetch = fetch;
+        this.hasData = hasData;
+        this.options = options;
+        this.scheduler = scheduler;
+        this.executor = executor;
+        this.random = random;
+        this.listener = listener;
+    }
+
+    void start() {
+        synchronized (this) {
+            deadline = scheduler.schedule(this::onDeadline, options.getDeadlineMillis(), TimeUnit.MILLISECONDS);
+            if (options.isHedged()) {
+                hedge = scheduler.schedule(this::readCache, options.getHedgeAfterMillis(), TimeUnit.MILLISECONDS);
+            }
+        }
+        readServer();
+    }
+
+    private void readServer() {
+        if (finished.get()) {
+            return;
+        }
+        final int attempt = attempts.incrementAndGet();
+        fetch.apply(Source.SERVER)
+                .addOnSuccessListener(executor, result ->
+                        finish(ProductResult.Status.OK, result, ProductMetrics.Origin.SERVER, null))
+                .addOnFailureListener(executor, e -> {
+                    if (finished.get()) {
+                        return;
+                    }
+                    long delay = options.backoffMillis(attempt - 1, random);
+                    long remaining = options.getDeadlineMillis() - elapsedMillis();
+                    if (isTransient(e) && attempt < options.getMaxAttempts() && delay < remaining) {
+                        Log.w(TAG, "intento " + attempt + " fallido, se reintenta en " + delay + " ms", e);
+                        scheduler.schedule(this::readServer, delay, TimeUnit.MILLISECONDS);
+                    } else {
+                        finish(ProductResult.Status.ERROR, null, null, e);
+                    }
+                });
+    }
+
+    // Lectura cubierta: el servidor tarda, se prueba con la caché local.
+    private void readCache() {
+        if (finished.get()) {
+            return;
+        }
+        fetch.apply(Source.CACHE).addOnSuccessListener(executor, result -> {
+            if (hasData.test(result)) {
+                finish(ProductResult.Status.OK, result, ProductMetrics.Origin.CACHE, null);
+            }
+        });
+    }
+
+    private void onDeadline() {
+        finish(ProductResult.Status.TIMEOUT, null, null, null);
+    }
+
+    private void finish(ProductResult.Status status, S value, ProductMetrics.Origin origin, Exception error) {
+        if (!finished.compareAndSet(false, true)) {
+            return;
+        }
+        synchronized (this) {
+            deadline.cancel(false);
+            if (hedge != null) {
+                hedge.cancel(false);
+            }
+        }
+        listener.onSuccess(new ProductResult<>(status, value, origin, error, attempts.get(), elapsedMillis()));
+    }
+
+    private long elapsedMillis() {
+        return SystemClock.elapsedRealtime() - startMillis;
+    }
+
+    // Errores que pueden desaparecer al repetir la petición.
+    static boolean isTransient(Exception e) {
+        if (!(e instanceof FirebaseFirestoreException)) {
+            return false;
+        }
+        switch (((FirebaseFirestoreException) e).getCode()) {
+            case UNAVAILABLE:
+            case DEADLINE_EXCEEDED:
+            case RESOURCE_EXHAUSTED:
+            case ABORTED:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
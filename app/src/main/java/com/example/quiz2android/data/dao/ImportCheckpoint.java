@@ -0,0 +1,109 @@
+package com.example.quiz2android.data.dao;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Properties;
+
+/**
+ * Explicación de la Clase ImportCheckpoint
+ *
+ * Punto de control de una importación del catálogo (ProductImporter). Se
+ * guarda en un archivo pequeño junto al archivo importado después de cada
+ * lote confirmado, así que si la importación se interrumpe (error de red, la
+ * app se cierra) la siguiente ejecución sigue desde ahí.
+ *
+ * importId: identificador de la importación. Los productos sin ID reciben
+ * el ID "importId-línea", de modo que repetir un lote que sí llegó a
+ * escribirse vuelve a escribir los mismos documentos en lugar de duplicarlos.
+ * lines: líneas del archivo ya procesadas (escritas o descartadas).
+ * rows: productos escritos hasta ahora.
+ * invalidRows: líneas descartadas por no ser un producto válido.
+ *
+ * save escribe primero un archivo temporal y lo renombra, para que un cierre
+ * a mitad de escritura no deje un punto de control roto.
+ */
+public class ImportCheckpoint {
+
+    private static final String KEY_IMPORT_ID = "importId";
+    private static final String KEY_LINES = "lines";
+    private static final String KEY_ROWS = "rows";
+    private static final String KEY_INVALID_ROWS = "invalidRows";
+
+    private final String importId;
+    private final long lines;
+    private final long rows;
+    private final long invalidRows;
+
+    public ImportCheckpoint(String importId, long lines, long rows, long invalidRows) {
+        this.importId = importId;
+        this.lines = lines;
+        this.rows = rows;
+        this.invalidRows = invalidRows;
+    }
+
+    public String getImportId() {
+        return importId;
+    }
+
+    public long getLines() {
+        return lines;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getInvalidRows() {
+        return invalidRows;
+    }
+
+    // Archivo donde se guarda el punto de control de source.
+    public static File fileFor(File source) {
+        return new File(source.getPath() + ".checkpoint");
+    }
+
+    // Lee el punto de control; null si no existe o no se puede leer.
+    @Nullable
+    public static ImportCheckpoint load(File file) {
+        if (!file.isFile()) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try (InputStream input = new FileInputStream(file)) {
+            properties.load(input);
+            String importId = properties.getProperty(KEY_IMPORT_ID);
+            if (importId == null) {
+                return null;
+            }
+            return new ImportCheckpoint(importId,
+                    Long.parseLong(properties.getProperty(KEY_LINES, "0")),
+                    Long.parseLong(properties.getProperty(KEY_ROWS, "0")),
+                    Long.parseLong(properties.getProperty(KEY_INVALID_ROWS, "0")));
+        } catch (IOException | NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public void save(File file) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty(KEY_IMPORT_ID, importId);
+        properties.setProperty(KEY_LINES, Long.toString(lines));
+        properties.setProperty(KEY_ROWS, Long.toString(rows));
+        properties.setProperty(KEY_INVALID_ROWS, Long.toString(invalidRows));
+
+        File temporary = new File(file.getPath() + ".tmp");
+        try (FileOutputStream output = new FileOutputStream(temporary)) {
+            properties.store(output, null);
+            output.getFD().sync();
+        }
+        if (!temporary.renameTo(file)) {
+            throw new IOException("No se pudo guardar " + file);
+        }
+    }
+}
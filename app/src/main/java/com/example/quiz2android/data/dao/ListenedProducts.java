@@ -0,0 +1,76 @@
+package com.example.quiz2android.data.dao;
+
+import androidx.annotation.Nullable;
+
+import com.example.quiz2android.data.model.Product;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Explicación de la Clase ListenedProducts
+ *
+ * Productos que alguna escucha en tiempo real de ProductDao.subscribe tiene
+ * al día. Mientras una escucha sigue activa, Firestore le avisa de cada
+ * cambio de su rango, así que la versión guardada aquí es la actual y
+ * ProductDao.update puede enviar solo los campos que cambian respecto a ella.
+ *
+ * Cada escucha lleva su propio conjunto de IDs (range). Un producto sale de
+ * aquí cuando ninguna escucha activa lo tiene: al borrarse, al cancelar la
+ * escucha (release) o si la escucha falla.
+ *
+ * Los métodos son synchronized porque las escuchas aplican sus cambios en
+ * decodeExecutor y las escrituras consultan desde el hilo principal.
+ */
+class ListenedProducts {
+
+    private final Map<String, Product> products = new HashMap<>();
+    // Número de escuchas activas que tienen cada ID en su rango.
+    private final Map<String, Integer> listeners = new HashMap<>();
+
+    // Guarda la última versión de product, recibida por la escucha de range.
+    synchronized void put(Set<String> range, Product product) {
+        String id = product.getId();
+        if (range.add(id)) {
+            Integer count = listeners.get(id);
+            listeners.put(id, count != null ? count + 1 : 1);
+        }
+        products.put(id, product);
+    }
+
+    // El producto id se borró o salió del rango de la escucha de range.
+    synchronized void remove(Set<String> range, String id) {
+        if (range.remove(id)) {
+            releaseId(id);
+        }
+    }
+
+    // La escucha de range terminó: sus productos ya no se consideran al día.
+    synchronized void release(Set<String> range) {
+        for (String id : range) {
+            releaseId(id);
+        }
+        range.clear();
+    }
+
+    // Última versión del producto si una escucha activa lo tiene al día, o null.
+    @Nullable
+    synchronized Product get(String id) {
+        return products.get(id);
+    }
+
+    synchronized int size() {
+        return products.size();
+    }
+
+    private void releaseId(String id) {
+        Integer count = listeners.get(id);
+        if (count == null || count <= 1) {
+            listeners.remove(id);
+            products.remove(id);
+        } else {
+            listeners.put(id, count - 1);
+        }
+    }
+}
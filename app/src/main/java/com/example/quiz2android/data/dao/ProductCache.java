@@ -0,0 +1,193 @@
+package com.example.quiz2android.data.dao;
+
+import com.example.quiz2android.data.model.Product;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Explicación de la Clase ProductCache
+ *
+ * Caché LRU (el menos usado recientemente sale primero) con tiempo de vida
+ * (TTL) que ProductDao usa delante de getById. Las entradas se guardan por ID
+ * de documento en un LinkedHashMap en orden de acceso.
+ *
+ * Límites:
+ * maxEntries: número máximo de productos guardados.
+ * maxBytes: tamaño aproximado máximo (ver estimateBytes).
+ * ttlMillis: tiempo que una entrada se considera válida.
+ * Cuando se supera cualquiera de los dos límites de tamaño se expulsan las
+ * entradas más antiguas.
+ *
+ * Contadores: hits, misses, evictions (por tamaño) y expirations (por TTL),
+ * para ajustar el tamaño con datos reales.
+ */
+public class ProductCache {
+
+    /**
+     * Reloj en milisegundos. Se puede reemplazar en las pruebas para simular
+     * el paso del tiempo.
+     */
+    public interface Clock {
+        long nowMillis();
+    }
+
+    private static final Clock SYSTEM_CLOCK = () -> TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+
+    // Memoria fija aproximada de cada entrada (objetos, referencias y nodo del mapa).
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+    private static final int PRICE_BYTES = 8;
+
+    private static class Entry {
+        final Product product;
+        final long expiresAt;
+        final int bytes;
+
+        Entry(Product product, long expiresAt, int bytes) {
+            this.product = product;
+            this.expiresAt = expiresAt;
+            this.bytes = bytes;
+        }
+    }
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long ttlMillis;
+    private final Clock clock;
+
+    private long currentBytes;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long expirations;
+
+    public ProductCache(int maxEntries, long maxBytes, long ttlMillis) {
+        this(maxEntries, maxBytes, ttlMillis, SYSTEM_CLOCK);
+    }
+
+    public ProductCache(int maxEntries, long maxBytes, long ttlMillis, Clock clock) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Devuelve el producto guardado con ese ID, o null si no está o ya caducó.
+     * Cuenta un acierto o un fallo.
+     */
+    public synchronized Product get(String id) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        if (entry.expiresAt <= clock.nowMillis()) {
+            removeEntry(id);
+            expirations++;
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.product;
+    }
+
+    /**
+     * Igual que get, pero sin contar aciertos ni fallos. La usan las
+     * escrituras de ProductDao, que consultan la caché sin ser lecturas.
+     */
+    public synchronized Product peek(String id) {
+        Entry entry = entries.get(id);
+        return entry != null && entry.expiresAt > clock.nowMillis() ? entry.product : null;
+    }
+
+    // Guarda (o refresca) un producto con su ID y expulsa lo que sobre.
+    public synchronized void put(String id, Product product) {
+        if (id == null || product == null) {
+            return;
+        }
+        removeEntry(id);
+        Entry entry = new Entry(product, clock.nowMillis() + ttlMillis, estimateBytes(id, product));
+        entries.put(id, entry);
+        currentBytes += entry.bytes;
+        trim();
+    }
+
+    public synchronized void invalidate(String id) {
+        removeEntry(id);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized long getBytes() {
+        return currentBytes;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized long getExpirations() {
+        return expirations;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ProductCache{size=" + entries.size()
+                + ", bytes=" + currentBytes
+                + ", hits=" + hits
+                + ", misses=" + misses
+                + ", evictions=" + evictions
+                + ", expirations=" + expirations + "}";
+    }
+
+    private void removeEntry(String id) {
+        Entry removed = entries.remove(id);
+        if (removed != null) {
+            currentBytes -= removed.bytes;
+        }
+    }
+
+    // Expulsa las entradas menos usadas hasta cumplir los límites de tamaño.
+    private void trim() {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || currentBytes > maxBytes) && iterator.hasNext()) {
+            Entry eldest = iterator.next().getValue();
+            iterator.remove();
+            currentBytes -= eldest.bytes;
+            evictions++;
+        }
+    }
+
+    /**
+     * Tamaño aproximado en memoria de una entrada: dos bytes por carácter de
+     * cada String, 8 bytes del precio y una cantidad fija por los objetos que
+     * la envuelven.
+     */
+    static int estimateBytes(String id, Product product) {
+        return ENTRY_OVERHEAD_BYTES + PRICE_BYTES
+                + 2 * (length(id) + length(product.getId()) + length(product.getname()) + length(product.getImageUrl()));
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.quiz2android.data.dao;
+
+import com.example.quiz2android.data.model.Product;
+
+import java.util.List;
+
+/**
+ * Explicación de la Clase ProductChanges
+ *
+ * Cambios en tiempo real que ProductDao.subscribe entrega al listener. Solo
+ * contiene los productos que cambiaron en un evento de Firestore, no la lista
+ * completa del modelo local, así que su tamaño no depende de cuántos
+ * productos haya cargados.
+ *
+ * updated: productos añadidos o modificados (ya guardados en el ProductStore).
+ * removedIds: IDs de los productos eliminados (ya quitados del ProductStore).
+ */
+public class ProductChanges {
+
+    private final List<Product> updated;
+    private final List<String> removedIds;
+
+    public ProductChanges(List<Product> updated, List<String> removedIds) {
+        this.updated = updated;
+        this.removedIds = removedIds;
+    }
+
+    public List<Product> getUpdated() {
+        return updated;
+    }
+
+    public List<String> getRemovedIds() {
+        return removedIds;
+    }
+
+    public int size() {
+        return updated.size() + removedIds.size();
+    }
+}
@@ -0,0 +1,170 @@
+package com.example.quiz2android.data.dao;
+
+import androidx.annotation.Nullable;
+import androidx.collection.ArrayMap;
+
+import com.example.quiz2android.data.model.Product;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Explicación de la Clase ProductCodec
+ *
+ * Convierte un Product a los campos de Firestore y al revés, escrito a mano.
+ *
+ * DocumentSnapshot.toObject(Product.class) usa reflexión para encontrar los
+ * getters y setters de la clase, y además nunca rellena el ID del producto.
+ * Este codec lee y escribe cada campo directamente y asigna el ID del
+ * documento, así que es más rápido y genera menos basura.
+ *
+ * fromSnapshot: documento de Firestore -> Product (con su ID).
+ * fromData: ID + Map de campos -> Product (mismo resultado que fromSnapshot).
+ * toData: Product -> Map de campos para add, set o update. Usa un ArrayMap
+ * del tamaño justo en lugar de un HashMap.
+ * estimateDocumentBytes: tamaño aproximado del documento en Firestore.
+ * parsePrice: convierte el texto que escribe el usuario en un precio.
+ *
+ * El precio se guarda como número en el campo "price". Los documentos
+ * antiguos lo tenían como texto en "password"; si un documento no tiene
+ * "price", se lee ese campo y se convierte a número, así que la app no
+ * necesita migrarlos para mostrarlos. legacyPriceFields sirve para migrarlos
+ * una sola vez desde fuera de la app (ProductDao.migrateLegacyPrices).
+ * changedFields: solo los campos que cambian entre dos versiones del
+ * producto, para escribirlos con update().
+ *
+ * La imagen ("imageUrl") es opcional. Un Product con imageUrl null no la
+ * escribe ni la cuenta como cambio, así que editar el nombre o el precio
+ * desde la pantalla (que no maneja imágenes) conserva la imagen guardada.
+ */
+public final class ProductCodec {
+
+    public static final String FIELD_NAME = "name";
+    public static final String FIELD_PRICE = "price";
+    public static final String FIELD_IMAGE_URL = "imageUrl";
+    // Campo de texto donde los documentos antiguos guardaban el precio.
+    public static final String LEGACY_FIELD_PASSWORD = "password";
+
+    private static final int FIELD_COUNT = 3;
+    private static final int NUMBER_BYTES = 8;
+
+    private ProductCodec() {
+    }
+
+    public static Product fromSnapshot(DocumentSnapshot document) {
+        Product user = new Product();
+        user.setId(document.getId());
+        user.setname(asString(document.get(FIELD_NAME)));
+        user.setPrice(asPrice(document.get(FIELD_PRICE), document.get(LEGACY_FIELD_PASSWORD)));
+        user.setImageUrl(asString(document.get(FIELD_IMAGE_URL)));
+        return user;
+    }
+
+    public static Product fromData(String id, Map<String, Object> data) {
+        Product user = new Product();
+        user.setId(id);
+        user.setname(asString(data.get(FIELD_NAME)));
+        user.setPrice(asPrice(data.get(FIELD_PRICE), data.get(LEGACY_FIELD_PASSWORD)));
+        user.setImageUrl(asString(data.get(FIELD_IMAGE_URL)));
+        return user;
+    }
+
+    public static Map<String, Object> toData(Product user) {
+        Map<String, Object> userData = new ArrayMap<>(FIELD_COUNT);
+        userData.put(FIELD_NAME, user.getname());
+        userData.put(FIELD_PRICE, user.getPrice());
+        if (user.getImageUrl() != null) {
+            userData.put(FIELD_IMAGE_URL, user.getImageUrl());
+        }
+        return userData;
+    }
+
+    /**
+     * Tamaño aproximado de un producto como documento de Firestore, con la
+     * regla de tamaño de almacenamiento: 32 bytes fijos, el ID, y por cada
+     * campo su nombre y su valor (cadenas: longitud + 1; números: 8).
+     */
+    public static long estimateDocumentBytes(Product user) {
+        return 32 + stringBytes(user.getId())
+                + stringBytes(FIELD_NAME) + stringBytes(user.getname())
+                + stringBytes(FIELD_PRICE) + NUMBER_BYTES
+                + (user.getImageUrl() != null ? stringBytes(FIELD_IMAGE_URL) + stringBytes(user.getImageUrl()) : 0);
+    }
+
+    // Los productos usan casi solo caracteres ASCII, así que length() se acerca al tamaño UTF-8.
+    private static long stringBytes(String value) {
+        return value != null ? value.length() + 1 : 1;
+    }
+
+    // true si data guarda el precio solo en el campo antiguo "password" (le falta "price").
+    public static boolean hasOnlyLegacyPrice(Map<String, Object> data) {
+        return data.get(FIELD_PRICE) == null && data.get(LEGACY_FIELD_PASSWORD) != null;
+    }
+
+    /**
+     * Campos para migrar un documento antiguo: "price" numérico (leído de
+     * "password") si le falta, y el borrado de "password". Sin "password", el
+     * documento ya no sale en la consulta de ProductDao.migrateLegacyPrices.
+     */
+    public static Map<String, Object> legacyPriceFields(Map<String, Object> data) {
+        Map<String, Object> fields = new ArrayMap<>(2);
+        if (hasOnlyLegacyPrice(data)) {
+            fields.put(FIELD_PRICE, asPrice(null, data.get(LEGACY_FIELD_PASSWORD)));
+        }
+        fields.put(LEGACY_FIELD_PASSWORD, FieldValue.delete());
+        return fields;
+    }
+
+    // Campos de next distintos de previous; vacío si no cambió nada.
+    public static Map<String, Object> changedFields(Product previous, Product next) {
+        Map<String, Object> changes = new ArrayMap<>(FIELD_COUNT);
+        if (!Objects.equals(previous.getname(), next.getname())) {
+            changes.put(FIELD_NAME, next.getname());
+        }
+        if (Double.compare(previous.getPrice(), next.getPrice()) != 0) {
+            changes.put(FIELD_PRICE, next.getPrice());
+        }
+        if (next.getImageUrl() != null && !next.getImageUrl().equals(previous.getImageUrl())) {
+            changes.put(FIELD_IMAGE_URL, next.getImageUrl());
+        }
+        return changes;
+    }
+
+    /**
+     * Convierte un precio escrito por el usuario ("1200", "12.5" o "12,5") en
+     * número. Devuelve null si el texto no es un precio válido (vacío, no
+     * numérico, negativo, infinito o NaN).
+     */
+    @Nullable
+    public static Double parsePrice(@Nullable String text) {
+        if (text == null) {
+            return null;
+        }
+        try {
+            double price = Double.parseDouble(text.trim().replace(',', '.'));
+            return price >= 0 && !Double.isInfinite(price) ? price : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // Precio numérico; si falta, el del campo antiguo de texto; si tampoco es válido, 0.
+    private static double asPrice(Object value, Object legacyValue) {
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        Double parsed = parsePrice(value instanceof String ? (String) value
+                : legacyValue != null ? String.valueOf(legacyValue) : null);
+        return parsed != null ? parsed : 0;
+    }
+
+    // Acepta también valores numéricos guardados a mano en la consola de Firebase.
+    private static String asString(Object value) {
+        if (value == null || value instanceof String) {
+            return (String) value;
+        }
+        return String.valueOf(value);
+    }
+}
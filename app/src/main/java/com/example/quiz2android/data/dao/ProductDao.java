@@ -1,21 +1,53 @@
 package com.example.quiz2android.data.dao;
 
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.util.Log;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.annotation.VisibleForTesting;
 
 import com.example.quiz2android.data.model.Product;
+import com.example.quiz2android.data.model.ProductStore;
 import com.google.android.gms.tasks.OnFailureListener;
 import com.google.android.gms.tasks.OnSuccessListener;
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.AggregateField;
+import com.google.firebase.firestore.AggregateQuery;
+import com.google.firebase.firestore.AggregateQuerySnapshot;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
 import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.WriteBatch;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
 
 /**
  * Este archivo se encarga de gestionar las operaciones de base de datos en
@@ -36,8 +68,55 @@ public class ProductDao {
 
     private static final String TAG = "Quiz 2 Android";
     private static final String COLLECTION_NAME = "Productos";
+    // Último carácter Unicode usado para cerrar el rango de las búsquedas por prefijo.
+    private static final String PREFIX_END = "\uf8ff";
+    // Máximo de operaciones por WriteBatch (el límite de Firestore es 500).
+    private static final int MAX_BATCH_SIZE = 450;
+    // Máximo de lotes que se confirman a la vez en las operaciones masivas.
+    private static final int MAX_PARALLEL_COMMITS = 4;
+    // Envíos como máximo de una escritura write-behind que falla por errores pasajeros.
+    private static final int WRITE_BEHIND_MAX_ATTEMPTS = 3;
+
+    // Límites por defecto de la caché de getById.
+    private static final int CACHE_MAX_ENTRIES = 500;
+    private static final long CACHE_MAX_BYTES = 256 * 1024;
+    private static final long CACHE_TTL_MILLIS = 5 * 60 * 1000;
+
+    /**
+     * Hilo de fondo compartido donde se convierten los resultados de Firestore
+     * en Product y se arman las listas, para no bloquear el hilo principal.
+     */
+    private static final Executor DECODE_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ProductDao-decode");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Hilo de fondo compartido para los plazos, las esperas entre reintentos y
+     * las lecturas cubiertas de las lecturas con CallOptions (DeadlineRead).
+     */
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ProductDao-deadline");
+        thread.setDaemon(true);
+        return thread;
+    });
 
     private final FirebaseFirestore db;
+    private final ProductFetcher fetcher;
+    private final ProductCache cache;
+    private final Executor decodeExecutor;
+    private final Executor resultExecutor;
+    private final AtomicLong mainThreadBlockedNanos = new AtomicLong();
+    private final ReadCoalescer coalescer = new ReadCoalescer();
+    private final ListenedProducts listened = new ListenedProducts();
+    private final ProductMetrics metrics = new ProductMetrics();
+    private final Handler flushHandler = new Handler(Looper.getMainLooper());
+    private final Runnable flushRunnable = this::flush;
+    private WriteBehindQueue writeBehind;
+    private long writeBehindDelayMillis;
+    private ReadPolicy readPolicy = ReadPolicy.DEFAULT;
+    private final Random backoffRandom = new Random();
 
     /**
      * Constructor de la clase ProductDao.
@@ -46,7 +125,78 @@ public class ProductDao {
 Instancia de FirebaseFirestore para acceder a la base de datos.
      */
     public ProductDao(FirebaseFirestore db) {
+        this(db, new ProductCache(CACHE_MAX_ENTRIES, CACHE_MAX_BYTES, CACHE_TTL_MILLIS));
+    }
+
+    /**
+     * Constructor que recibe la caché de getById, para poder configurar su
+     * tamaño y su TTL o leer sus contadores.
+     */
+    public ProductDao(FirebaseFirestore db, ProductCache cache) {
+        this(db, cache, DECODE_EXECUTOR, new Handler(Looper.getMainLooper())::post);
+    }
+
+    /**
+     * Constructor que recibe también los ejecutores de los listeners:
+     * decodeExecutor: donde se convierten los documentos en Product.
+     * resultExecutor: donde se entrega el resultado final (normalmente el hilo
+     * principal, para poder tocar la UI).
+     * Pasar el ejecutor del hilo principal como decodeExecutor reproduce el
+     * comportamiento anterior, útil para comparar con getMainThreadBlockedNanos.
+     */
+    public ProductDao(FirebaseFirestore db, ProductCache cache, Executor decodeExecutor, Executor resultExecutor) {
+        this(db, cache, decodeExecutor, resultExecutor, firestoreFetcher(db));
+    }
+
+    /**
+     * Solo para pruebas: igual que el anterior, pero getById y getAll leen con
+     * fetcher en lugar de con Firestore (ver ProductFetcher).
+     */
+    @VisibleForTesting
+    public ProductDao(FirebaseFirestore db, ProductCache cache, Executor decodeExecutor, Executor resultExecutor,
+                      ProductFetcher fetcher) {
         this.db = db;
+        this.fetcher = fetcher;
+        this.cache = cache;
+        this.decodeExecutor = decodeExecutor;
+        this.resultExecutor = resultExecutor;
+    }
+
+    /**
+     * Tiempo total, en nanosegundos, que ProductDao pasó procesando resultados
+     * de lectura (conversión a Product y armado de listas) en el hilo principal.
+     * Con el ejecutor de fondo por defecto debería quedarse cerca de cero.
+     */
+    public long getMainThreadBlockedNanos() {
+        return mainThreadBlockedNanos.get();
+    }
+
+    public void resetMainThreadBlockedNanos() {
+        mainThreadBlockedNanos.set(0);
+    }
+
+    // Caché de lectura de getById, con sus contadores de aciertos, fallos y expulsiones.
+    public ProductCache getCache() {
+        return cache;
+    }
+
+    // Latencias, documentos, bytes, origen y errores de cada operación.
+    public ProductMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Pone en marcha el cliente de Firestore con una lectura mínima de la caché
+     * local (un documento, sin red), para que la primera lectura real no pague
+     * la apertura de la base de datos en disco.
+     */
+    public Task<QuerySnapshot> warmUp() {
+        return db.collection(COLLECTION_NAME).limit(1).get(Source.CACHE);
+    }
+
+    // Lecturas iguales en curso que se juntaron en una sola petición, con sus contadores.
+    public ReadCoalescer getReadCoalescer() {
+        return coalescer;
     }
 
     /**
@@ -60,7 +210,7 @@ Instancia de FirebaseFirestore para acceder a la base de datos.
      * OnSuccessListener<String> listener: escucha el resultado exitoso de la
      * operación e informa el ID del documento creado.
      *      * Proceso:
-     * Se crea un Map (userData) con los datos del producto.
+     * Se crea un Map (userData) con los datos del producto usando ProductCodec.
      * db.collection(COLLECTION_NAME).add(userData): añade el producto a Firestore.
      * addOnSuccessListener: si la inserción es exitosa, obtiene el ID del
      * documento y lo pasa al listener.
@@ -69,18 +219,20 @@ Instancia de FirebaseFirestore para acceder a la base de datos.
 Listener para notificar el resultado de la operación.
      */
     public void insert(Product user, OnSuccessListener<String> listener) {
-        Map<String, Object> userData = new HashMap<>();
-        userData.put("name", user.getname());
-        userData.put("password", user.getPassword());
+        Map<String, Object> userData = ProductCodec.toData(user);
+        final long start = System.nanoTime();
 
         db.collection(COLLECTION_NAME)
                 .add(userData)
                 .addOnSuccessListener(documentReference -> {
                     Log.d(TAG, "onSuccess: " + documentReference.getId());
+                    metrics.record(ProductMetrics.Operation.INSERT, System.nanoTime() - start, 1,
+                            ProductCodec.estimateDocumentBytes(user), ProductMetrics.Origin.SERVER);
                     listener.onSuccess(documentReference.getId());
                 })
                 .addOnFailureListener(e -> {
                     Log.e(TAG, "onFailure: ", e);
+                    metrics.recordFailure(ProductMetrics.Operation.INSERT, System.nanoTime() - start);
                     listener.onSuccess(null);
                 });
     }
@@ -96,8 +248,13 @@ Listener para notificar el resultado de la operación.
      * Product user: datos actualizados del producto.
      * OnSuccessListener<Boolean> listener: informa si la operación fue exitosa.
      *      * Proceso:
-     * Crea un Map con los datos actualizados.
+     * Crea un Map con los datos actualizados usando ProductCodec.
      * db.collection(COLLECTION_NAME).document(id).update(userData): actualiza el documento correspondiente.
+     * Si una escucha activa (subscribe) tiene al día el producto, solo se
+     * envían los campos que cambiaron con update(changes), y si no cambió
+     * ninguno no se hace ninguna petición (el listener recibe true). Si no, se
+     * envía el documento completo. update nunca crea el documento: si se borró,
+     * falla y el listener recibe false.
      * addOnSuccessListener: confirma el éxito de la operación.
      * addOnFailureListener: si falla, registra el error en el log.
      *
@@ -106,16 +263,33 @@ Listener para notificar el resultado de la operación.
      * @param listener Listener para notificar el resultado de la operación.
      */
     public void update(String id, Product user, OnSuccessListener<Boolean> listener) {
-        Map<String, Object> userData = new HashMap<>();
-        userData.put("name", user.getname());
-        userData.put("password", user.getPassword());
+        Map<String, Object> changes = changedFields(id, user);
+        if (changes != null && changes.isEmpty()) {
+            listener.onSuccess(true);
+            return;
+        }
 
-        db.collection(COLLECTION_NAME)
-                .document(id)
-                .update(userData)
-                .addOnSuccessListener(unused -> listener.onSuccess(true))
+        WriteBehindQueue queue = writeBehind;
+        if (queue != null) {
+            Product pending = new Product(user.getname(), user.getPrice());
+            pending.setId(id);
+            pending.setImageUrl(user.getImageUrl());
+            scheduleFlush(queue.enqueueUpdate(id, pending, listener));
+            return;
+        }
+
+        final long start = System.nanoTime();
+        writeChanges(id, user, changes)
+                .addOnSuccessListener(unused -> {
+                    // Refresca la caché con los datos recién escritos.
+                    cacheWritten(id, user);
+                    metrics.record(ProductMetrics.Operation.UPDATE, System.nanoTime() - start, 1,
+                            ProductCodec.estimateDocumentBytes(user), ProductMetrics.Origin.SERVER);
+                    listener.onSuccess(true);
+                })
                 .addOnFailureListener(e -> {
                     Log.e(TAG, "onFailure: ", e);
+                    metrics.recordFailure(ProductMetrics.Operation.UPDATE, System.nanoTime() - start);
                     listener.onSuccess(false);
                 });
     }
@@ -142,28 +316,44 @@ Listener para notificar el resultado de la operación.
      * Product y lo envía al listener.
      *
      * Si no existe o falla la operación, informa con null.
+     *
+     * Antes de ir a Firestore consulta la caché (ProductCache); si el producto
+     * está y no ha caducado, lo devuelve sin hacer ninguna petición. Los
+     * productos leídos de Firestore se guardan en la caché.
      *
          *
          * @param id       El ID del usuario a obtener.
          * @param listener Listener para notificar el resultado de la operación.
          */
         public void getById (String id, OnSuccessListener < Product > listener){
-            db.collection(COLLECTION_NAME)
-                    .document(id)
-                    .get()
-                    .addOnCompleteListener(task -> {
-                        if (task.isSuccessful()) {
-                            DocumentSnapshot document = task.getResult();
-                            if (document.exists()) {
-                                Product user = document.toObject(Product.class);
-                                listener.onSuccess(user);
-                            } else {
-                                listener.onSuccess(null);
-                            }
+            final long start = System.nanoTime();
+            Product cached = cache.get(id);
+            if (cached != null) {
+                metrics.record(ProductMetrics.Operation.GET_BY_ID, System.nanoTime() - start, 1,
+                        ProductCodec.estimateDocumentBytes(cached), ProductMetrics.Origin.MEMORY);
+                // También el acierto se entrega en resultExecutor, nunca dentro de la llamada.
+                deliver(listener, cached);
+                return;
+            }
+
+            read(source -> getDocument(id, source),
+                    document -> {
+                        if (document.exists()) {
+                            Product user = ProductCodec.fromSnapshot(document);
+                            cache.put(id, user);
+                            recordRead(ProductMetrics.Operation.GET_BY_ID, start, Collections.singletonList(user),
+                                    document.getMetadata().isFromCache());
+                            deliver(listener, user);
                         } else {
-                            Log.e(TAG, "onComplete: ", task.getException());
-                            listener.onSuccess(null);
+                            recordRead(ProductMetrics.Operation.GET_BY_ID, start, Collections.<Product>emptyList(),
+                                    document.getMetadata().isFromCache());
+                            deliver(listener, null);
                         }
+                    },
+                    e -> {
+                        Log.e(TAG, "onComplete: ", e);
+                        metrics.recordFailure(ProductMetrics.Operation.GET_BY_ID, System.nanoTime() - start);
+                        deliver(listener, null);
                     });
         }
 
@@ -190,29 +380,586 @@ Listener para notificar el resultado de la operación.
 
 
         public void getAll (OnSuccessListener < List < Product >> listener) {
-            db.collection(COLLECTION_NAME).get().addOnSuccessListener(new OnSuccessListener<QuerySnapshot>() {
+            final long start = System.nanoTime();
+            read(this::getCollection, new OnSuccessListener<QuerySnapshot>() {
                 @Override
                 public void onSuccess(QuerySnapshot queryDocumentSnapshots) {
-                    if (!queryDocumentSnapshots.isEmpty()) {
-                        List<Product> userList = new ArrayList<>();
-                        for (DocumentSnapshot documentSnapshot : queryDocumentSnapshots) {
-                            Product user = documentSnapshot.toObject(Product.class);
-                            userList.add(user);
-                        }
-                        listener.onSuccess(userList);
-                    } else {
-                        listener.onSuccess(null);
-                    }
+                    List<Product> products = toProducts(queryDocumentSnapshots);
+                    recordRead(ProductMetrics.Operation.GET_ALL, start, products,
+                            queryDocumentSnapshots.getMetadata().isFromCache());
+                    deliver(listener, products.isEmpty() ? null : products);
                 }
-            }).addOnFailureListener(new OnFailureListener() {
+            }, new OnFailureListener() {
                 @Override
                 public void onFailure(@NonNull Exception e) {
                     Log.e(TAG, "onFailure: ", e);
-                    listener.onSuccess(null);
+                    metrics.recordFailure(ProductMetrics.Operation.GET_ALL, System.nanoTime() - start);
+                    deliver(listener, null);
                 }
             });
         }
 
+    /**
+     *      * Métodos getById y getAll con CallOptions
+     * Las mismas lecturas, con plazo, reintentos y lectura cubierta.
+     *
+     *      * Explicación
+     * Función: Con una red lenta, getById y getAll pueden no responder nunca, y
+     * cuando fallan devuelven null, igual que cuando no hay datos. Estas
+     * versiones siempre terminan antes de options.getDeadlineMillis() y
+     * devuelven un ProductResult que dice qué pasó: OK (getAll con una lista
+     * vacía si no hay productos), NOT_FOUND, TIMEOUT o ERROR.
+     *
+     * Parámetros:
+     * CallOptions options: plazo, reintentos con espera exponencial y jitter
+     * para los errores transitorios, y tiempo de la lectura cubierta (ver
+     * CallOptions). CallOptions.DEFAULT sirve para la mayoría de los casos.
+     * OnSuccessListener<ProductResult<...>> listener: recibe el resultado en el
+     * hilo principal, una sola vez.
+     *
+     *      * Proceso:
+     * Leen del servidor (sin seguir ReadPolicy) con DeadlineRead. Con lectura
+     * cubierta, si el servidor no respondió en hedgeAfterMillis y la caché
+     * local de Firestore tiene el documento, getById entrega el de la caché
+     * (origin = CACHE). getAll no usa la lectura cubierta aunque options la
+     * pida: la caché local puede tener solo algunos productos y la lista no
+     * estaría completa. getById consulta antes ProductCache, como la versión
+     * sin CallOptions.
+     */
+    public void getById(String id, CallOptions options, OnSuccessListener<ProductResult<Product>> listener) {
+        final long start = System.nanoTime();
+        Product cached = cache.get(id);
+        if (cached != null) {
+            metrics.record(ProductMetrics.Operation.GET_BY_ID, System.nanoTime() - start, 1,
+                    ProductCodec.estimateDocumentBytes(cached), ProductMetrics.Origin.MEMORY);
+            // Como el resto de resultados, se entrega en resultExecutor y nunca dentro de la llamada.
+            deliver(listener, new ProductResult<>(ProductResult.Status.OK, cached, ProductMetrics.Origin.MEMORY,
+                    null, 0, 0));
+            return;
+        }
+        new DeadlineRead<>(source -> getDocument(id, source), DocumentSnapshot::exists,
+                options, SCHEDULER, decodeExecutor, backoffRandom, result -> {
+            DocumentSnapshot document = result.getValue();
+            if (!result.isOk()) {
+                Log.e(TAG, "getById: " + result);
+                metrics.recordFailure(ProductMetrics.Operation.GET_BY_ID, System.nanoTime() - start);
+                deliver(listener, result.<Product>withValue(result.getStatus(), null));
+            } else if (!document.exists()) {
+                recordRead(ProductMetrics.Operation.GET_BY_ID, start, Collections.<Product>emptyList(),
+                        result.getOrigin() == ProductMetrics.Origin.CACHE);
+                deliver(listener, result.<Product>withValue(ProductResult.Status.NOT_FOUND, null));
+            } else {
+                Product user = ProductCodec.fromSnapshot(document);
+                cache.put(id, user);
+                recordRead(ProductMetrics.Operation.GET_BY_ID, start, Collections.singletonList(user),
+                        result.getOrigin() == ProductMetrics.Origin.CACHE);
+                deliver(listener, result.withValue(ProductResult.Status.OK, user));
+            }
+        }).start();
+    }
+
+    public void getAll(CallOptions options, OnSuccessListener<ProductResult<List<Product>>> listener) {
+        final long start = System.nanoTime();
+        // Sin lectura cubierta: la caché local puede tener solo parte de la
+        // colección, y una lista incompleta no se puede entregar como OK.
+        new DeadlineRead<>(this::getCollection, snapshot -> false,
+                options.withHedgeAfter(CallOptions.NO_HEDGE), SCHEDULER, decodeExecutor, backoffRandom, result -> {
+            if (!result.isOk()) {
+                Log.e(TAG, "getAll: " + result);
+                metrics.recordFailure(ProductMetrics.Operation.GET_ALL, System.nanoTime() - start);
+                deliver(listener, result.<List<Product>>withValue(result.getStatus(), null));
+                return;
+            }
+            List<Product> products = toProducts(result.getValue());
+            recordRead(ProductMetrics.Operation.GET_ALL, start, products,
+                    result.getOrigin() == ProductMetrics.Origin.CACHE);
+            deliver(listener, result.withValue(ProductResult.Status.OK, products));
+        }).start();
+    }
+
+    /**
+     *      * Método getPage
+     * Obtiene una página de productos usando cursores.
+     *
+     *      * Explicación
+     * Función: Lee solo pageSize productos de la colección "Productos" en lugar
+     * de descargarla completa, de modo que el tiempo de la primera pantalla y la
+     * memoria usada no dependen del tamaño de la colección.
+     *
+     * Parámetros:
+     * int pageSize: número máximo de productos de la página.
+     * DocumentSnapshot startAfter: cursor de la página anterior (null para la primera).
+     * OnSuccessListener<ProductPage> listener: devuelve la página leída.
+     *
+     *      * Proceso:
+     * Ordena por el ID del documento, que es una clave estable y no necesita índice.
+     * Aplica limit(pageSize) y, si hay cursor, startAfter(startAfter).
+     * Convierte cada documento en un Product (con su ID) y guarda el último
+     * snapshot como cursor de la página siguiente.
+     *
+     * Si falla, registra el error y devuelve null.
+     *
+     * @param pageSize   Tamaño de la página.
+     * @param startAfter Último snapshot de la página anterior, o null.
+     * @param listener   Listener para notificar el resultado de la operación.
+     */
+    public void getPage(int pageSize, @Nullable DocumentSnapshot startAfter, OnSuccessListener<ProductPage> listener) {
+        final long start = System.nanoTime();
+        read(source -> getPageSnapshot(pageSize, startAfter, source),
+                queryDocumentSnapshots -> {
+                    ProductPage page = toPage(queryDocumentSnapshots, pageSize);
+                    recordRead(ProductMetrics.Operation.GET_PAGE, start, page.getProducts(),
+                            queryDocumentSnapshots.getMetadata().isFromCache());
+                    deliver(listener, page);
+                },
+                e -> {
+                    Log.e(TAG, "onFailure: ", e);
+                    metrics.recordFailure(ProductMetrics.Operation.GET_PAGE, System.nanoTime() - start);
+                    deliver(listener, null);
+                });
+    }
+
+    /**
+     *      * Método getPageCacheThenServer
+     * Lee una página en dos etapas: primero de la caché local y después del servidor.
+     *
+     *      * Explicación
+     * Función: Igual que getPage, pero para pintar la pantalla al instante con
+     * lo que hay en el disco mientras llega la respuesta del servidor. Tiene su
+     * propio listener (CacheThenServerListener), con un método por etapa, para
+     * que quien lee no confunda la página de la caché con la definitiva (por
+     * ejemplo para avanzar el cursor o registrar escuchas).
+     *
+     * Parámetros:
+     * int pageSize y DocumentSnapshot startAfter: como en getPage.
+     * CacheThenServerListener<ProductPage> listener: onCached con la página de
+     * la caché (si tenía productos y el servidor aún no respondió) y onServer
+     * con la del servidor, o null si falló.
+     *
+     *      * Proceso:
+     * Lanza a la vez la lectura de la caché (Source.CACHE) y la del servidor
+     * (Source.SERVER), sin seguir ReadPolicy.
+     *
+     * @param pageSize   Tamaño de la página.
+     * @param startAfter Último snapshot de la página anterior, o null.
+     * @param listener   Listener para notificar cada etapa.
+     */
+    public void getPageCacheThenServer(int pageSize, @Nullable DocumentSnapshot startAfter,
+                                       CacheThenServerListener<ProductPage> listener) {
+        final long start = System.nanoTime();
+        final AtomicBoolean serverAnswered = new AtomicBoolean();
+        getPageSnapshot(pageSize, startAfter, Source.CACHE).addOnSuccessListener(decodeExecutor, snapshot -> {
+            if (!serverAnswered.get() && !snapshot.isEmpty()) {
+                measured(() -> {
+                    ProductPage page = toPage(snapshot, pageSize);
+                    resultExecutor.execute(() -> {
+                        // El servidor pudo responder mientras se convertía la caché.
+                        if (!serverAnswered.get()) {
+                            listener.onCached(page);
+                        }
+                    });
+                });
+            }
+        });
+        getPageSnapshot(pageSize, startAfter, Source.SERVER)
+                .addOnSuccessListener(decodeExecutor, snapshot -> measured(() -> {
+                    ProductPage page = toPage(snapshot, pageSize);
+                    recordRead(ProductMetrics.Operation.GET_PAGE, start, page.getProducts(), false);
+                    resultExecutor.execute(() -> {
+                        serverAnswered.set(true);
+                        listener.onServer(page);
+                    });
+                }))
+                .addOnFailureListener(decodeExecutor, e -> {
+                    Log.e(TAG, "onFailure: ", e);
+                    metrics.recordFailure(ProductMetrics.Operation.GET_PAGE, System.nanoTime() - start);
+                    resultExecutor.execute(() -> {
+                        serverAnswered.set(true);
+                        listener.onServer(null);
+                    });
+                });
+    }
+
+    /**
+     *      * Método search
+     * Busca productos con filtro, orden y límite aplicados en el servidor.
+     *
+     *      * Explicación
+     * Función: Devuelve solo los productos que la pantalla necesita, en lugar de
+     * descargar toda la colección con getAll y filtrar u ordenar en la app.
+     *
+     * Parámetros:
+     * String namePrefix: prefijo del nombre (null o vacío para no filtrar).
+     * ProductSort sort: orden de los resultados (nombre o precio).
+     * int limit: número máximo de productos devueltos.
+     * OnSuccessListener<List<Product>> listener: devuelve los productos encontrados.
+     *
+     *      * Proceso:
+     * El prefijo se convierte en una consulta de rango sobre "name":
+     * name >= prefijo y name < prefijo + '\uf8ff' (el último carácter posible).
+     * Después se aplica orderBy según sort y limit(limit).
+     * Ordenar por precio con un prefijo necesita los índices compuestos de
+     * firestore.indexes.json (en la raíz del proyecto).
+     *
+     * Si no hay resultados devuelve una lista vacía; si falla, devuelve null.
+     *
+     * @param namePrefix Prefijo del nombre, o null.
+     * @param sort       Orden de los resultados.
+     * @param limit      Máximo de resultados.
+     * @param listener   Listener para notificar el resultado de la operación.
+     */
+    public void search(@Nullable String namePrefix, ProductSort sort, int limit, OnSuccessListener<List<Product>> listener) {
+        final long start = System.nanoTime();
+        read(searchQuery(namePrefix, sort, limit)::get,
+                queryDocumentSnapshots -> {
+                    List<Product> products = toProducts(queryDocumentSnapshots);
+                    recordRead(ProductMetrics.Operation.SEARCH, start, products,
+                            queryDocumentSnapshots.getMetadata().isFromCache());
+                    deliver(listener, products);
+                },
+                e -> {
+                    Log.e(TAG, "onFailure: ", e);
+                    metrics.recordFailure(ProductMetrics.Operation.SEARCH, System.nanoTime() - start);
+                    deliver(listener, null);
+                });
+    }
+
+    /**
+     *      * Método getStats
+     * Calcula en el servidor el número de productos y la suma y el promedio de
+     * sus precios.
+     *
+     *      * Explicación
+     * Función: Para los números de un panel (cuántos productos hay, precio
+     * medio) no hace falta descargar la colección con getAll: una consulta de
+     * agregación (AggregateQuery) hace el cálculo en Firestore y devuelve solo
+     * el resultado.
+     *
+     * Parámetros:
+     * OnSuccessListener<ProductStats> listener: recibe el número de productos,
+     * la suma y el promedio del campo "price".
+     *
+     *      * Proceso:
+     * db.collection(COLLECTION_NAME).aggregate(count, sum(price), average(price))
+     * se ejecuta siempre en el servidor (AggregateSource.SERVER); no usa la
+     * caché local. Firestore cobra una lectura por cada 1000 documentos
+     * contados, en lugar de una por documento.
+     *
+     * Si falla, registra el error y devuelve null.
+     *
+     * @param listener Listener para notificar el resultado de la operación.
+     */
+    public void getStats(OnSuccessListener<ProductStats> listener) {
+        final long start = System.nanoTime();
+        statsQuery().get(AggregateSource.SERVER)
+                .addOnSuccessListener(decodeExecutor, snapshot -> {
+                    metrics.record(ProductMetrics.Operation.AGGREGATE, System.nanoTime() - start, 0, 0,
+                            ProductMetrics.Origin.SERVER);
+                    deliver(listener, toStats(snapshot));
+                })
+                .addOnFailureListener(decodeExecutor, e -> {
+                    Log.e(TAG, "onFailure: ", e);
+                    metrics.recordFailure(ProductMetrics.Operation.AGGREGATE, System.nanoTime() - start);
+                    deliver(listener, null);
+                });
+    }
+
+    private AggregateQuery statsQuery() {
+        return db.collection(COLLECTION_NAME).aggregate(
+                AggregateField.count(),
+                AggregateField.sum(ProductCodec.FIELD_PRICE),
+                AggregateField.average(ProductCodec.FIELD_PRICE));
+    }
+
+    private static ProductStats toStats(AggregateQuerySnapshot snapshot) {
+        Double sum = snapshot.getDouble(AggregateField.sum(ProductCodec.FIELD_PRICE));
+        Double average = snapshot.getDouble(AggregateField.average(ProductCodec.FIELD_PRICE));
+        return new ProductStats(snapshot.getCount(), sum != null ? sum : 0, average);
+    }
+
+    // Consulta de getPage: ordenada por ID de documento, con límite y cursor.
+    private Query pageQuery(int pageSize, @Nullable DocumentSnapshot startAfter) {
+        Query query = db.collection(COLLECTION_NAME)
+                .orderBy(FieldPath.documentId())
+                .limit(pageSize);
+        return startAfter != null ? query.startAfter(startAfter) : query;
+    }
+
+    // Consulta de search: rango por prefijo del nombre, orden y límite.
+    private Query searchQuery(@Nullable String namePrefix, ProductSort sort, int limit) {
+        Query query = db.collection(COLLECTION_NAME);
+        if (namePrefix != null && !namePrefix.isEmpty()) {
+            query = query.whereGreaterThanOrEqualTo(ProductCodec.FIELD_NAME, namePrefix)
+                    .whereLessThan(ProductCodec.FIELD_NAME, namePrefix + PREFIX_END);
+        }
+        return query.orderBy(sort.getField(), sort.isDescending() ? Query.Direction.DESCENDING : Query.Direction.ASCENDING)
+                .limit(limit);
+    }
+
+    private static List<Product> toProducts(QuerySnapshot queryDocumentSnapshots) {
+        List<Product> products = new ArrayList<>(queryDocumentSnapshots.size());
+        for (DocumentSnapshot documentSnapshot : queryDocumentSnapshots) {
+            products.add(ProductCodec.fromSnapshot(documentSnapshot));
+        }
+        return products;
+    }
+
+    private static ProductPage toPage(QuerySnapshot queryDocumentSnapshots, int pageSize) {
+        List<DocumentSnapshot> documents = queryDocumentSnapshots.getDocuments();
+        DocumentSnapshot last = documents.isEmpty() ? null : documents.get(documents.size() - 1);
+        return new ProductPage(toProducts(queryDocumentSnapshots), last, documents.size() == pageSize);
+    }
+
+    /**
+     * Política de lectura usada por getById, getAll, getPage y search (ver
+     * ReadPolicy). Con cualquier política el listener se llama una sola vez.
+     */
+    public void setReadPolicy(ReadPolicy readPolicy) {
+        this.readPolicy = readPolicy;
+    }
+
+    public ReadPolicy getReadPolicy() {
+        return readPolicy;
+    }
+
+    /**
+     * Ejecuta una lectura con la fuente de la política actual.
+     * fetch: hace la lectura con la fuente indicada (Source.CACHE, Source.SERVER
+     * o Source.DEFAULT).
+     * onResult y onFailure se ejecutan en decodeExecutor (fuera del hilo
+     * principal); deben entregar su resultado con deliver.
+     */
+    private <T> void read(Function<Source, Task<T>> fetch, OnSuccessListener<T> onResult, OnFailureListener onFailure) {
+        fetch.apply(source())
+                .addOnSuccessListener(decodeExecutor, result -> measured(() -> onResult.onSuccess(result)))
+                .addOnFailureListener(decodeExecutor, onFailure);
+    }
+
+    // Fuente de Firestore de la política de lectura actual.
+    private Source source() {
+        switch (readPolicy) {
+            case CACHE_ONLY:
+                return Source.CACHE;
+            case SERVER_ONLY:
+                return Source.SERVER;
+            case DEFAULT:
+            default:
+                return Source.DEFAULT;
+        }
+    }
+
+    /*
+     * Lecturas compartidas: si ya hay una lectura igual en curso (misma
+     * consulta y misma fuente), se reutiliza su Task en lugar de pedir otra
+     * vez lo mismo a Firestore. Así, pulsar "Leer" varias veces seguidas o
+     * pedir el mismo ID desde varias pantallas hace una sola petición.
+     */
+    private Task<DocumentSnapshot> getDocument(String id, Source source) {
+        return coalescer.share("getById:" + id + "|" + source, () -> fetcher.getDocument(id, source));
+    }
+
+    private Task<QuerySnapshot> getCollection(Source source) {
+        return coalescer.share("getAll|" + source, () -> fetcher.getCollection(source));
+    }
+
+    // Lecturas de getById y getAll contra Firestore (el ProductFetcher por defecto).
+    private static ProductFetcher firestoreFetcher(FirebaseFirestore db) {
+        return new ProductFetcher() {
+            @Override
+            public Task<DocumentSnapshot> getDocument(String id, Source source) {
+                return db.collection(COLLECTION_NAME).document(id).get(source);
+            }
+
+            @Override
+            public Task<QuerySnapshot> getCollection(Source source) {
+                return db.collection(COLLECTION_NAME).get(source);
+            }
+        };
+    }
+
+    private Task<QuerySnapshot> getPageSnapshot(int pageSize, @Nullable DocumentSnapshot startAfter, Source source) {
+        String cursor = startAfter != null ? startAfter.getId() : "";
+        return coalescer.share("getPage:" + pageSize + ":" + cursor + "|" + source,
+                () -> pageQuery(pageSize, startAfter).get(source));
+    }
+
+    /**
+     * Campos de user que cambian respecto a la versión que tiene al día una
+     * escucha activa (ListenedProducts). La caché de getById no sirve de base:
+     * puede tener hasta CACHE_TTL_MILLIS de antigüedad y un campo cambiado por
+     * otro cliente no se enviaría. Devuelve null si ninguna escucha tiene el
+     * producto y hay que escribir el documento completo, o un Map vacío si no
+     * cambió nada.
+     */
+    @Nullable
+    private Map<String, Object> changedFields(String id, Product user) {
+        Product previous = listened.get(id);
+        return previous != null ? ProductCodec.changedFields(previous, user) : null;
+    }
+
+    /*
+     * Guarda en la caché una copia de los datos recién escritos. Si user no
+     * trae imagen, el documento conserva la que tenía (ver ProductCodec), que
+     * se toma de la caché; si no se conoce, el producto se quita de la caché
+     * para que la próxima lectura la traiga de Firestore.
+     */
+    private void cacheWritten(String id, Product user) {
+        Product previous = cache.peek(id);
+        if (user.getImageUrl() == null && previous == null) {
+            cache.invalidate(id);
+            return;
+        }
+        Product cached = new Product(user.getname(), user.getPrice());
+        cached.setId(id);
+        cached.setImageUrl(user.getImageUrl() != null ? user.getImageUrl() : previous.getImageUrl());
+        cache.put(id, cached);
+    }
+
+    /*
+     * Escribe solo changes, o el documento completo si changes es null. Siempre
+     * con update, que falla si el documento ya no existe en lugar de volver a
+     * crearlo (set con merge resucitaría un producto borrado).
+     */
+    private Task<Void> writeChanges(String id, Product user, @Nullable Map<String, Object> changes) {
+        return db.collection(COLLECTION_NAME).document(id)
+                .update(changes != null ? changes : ProductCodec.toData(user));
+    }
+
+    // Registra una lectura terminada: latencia desde start, documentos, bytes y origen.
+    private void recordRead(ProductMetrics.Operation operation, long start, List<Product> products, boolean fromCache) {
+        long bytes = 0;
+        for (Product product : products) {
+            bytes += ProductCodec.estimateDocumentBytes(product);
+        }
+        metrics.record(operation, System.nanoTime() - start, products.size(), bytes,
+                fromCache ? ProductMetrics.Origin.CACHE : ProductMetrics.Origin.SERVER);
+    }
+
+    // Entrega el resultado final al listener en resultExecutor (el hilo principal).
+    private <T> void deliver(OnSuccessListener<T> listener, T value) {
+        resultExecutor.execute(() -> listener.onSuccess(value));
+    }
+
+    // Ejecuta el trabajo y, si corre en el hilo principal, suma su duración.
+    private void measured(Runnable work) {
+        if (Looper.myLooper() != Looper.getMainLooper()) {
+            work.run();
+            return;
+        }
+        long start = System.nanoTime();
+        work.run();
+        mainThreadBlockedNanos.addAndGet(System.nanoTime() - start);
+    }
+
+    /**
+     *      * Método subscribe
+     * Escucha en tiempo real los cambios de un rango de productos.
+     *
+     *      * Explicación
+     * Función: Registra un addSnapshotListener sobre un rango de la colección
+     * "Productos" (ordenada por ID de documento) y aplica solo los cambios
+     * (DocumentChange) al modelo local, en lugar de volver a descargar toda la
+     * colección con getAll para ver datos nuevos.
+     *
+     * Se pensó para registrar una escucha por página: al cargar una página
+     * nueva se añade la escucha de su rango y las de las páginas anteriores se
+     * conservan. Así cada documento se lee una sola vez al registrar las
+     * escuchas, en lugar de volver a leer todas las páginas cargadas cada vez
+     * que llega una.
+     *
+     * Parámetros:
+     * DocumentSnapshot startAfter: último documento de la página anterior; el
+     * rango empieza después de él (null para empezar en el primer producto).
+     * DocumentSnapshot endAt: último documento de la página; el rango lo
+     * incluye (null para escuchar hasta el final de la colección, también los
+     * productos nuevos).
+     * ProductStore store: modelo local en memoria donde se aplican los cambios.
+     * OnSuccessListener<ProductChanges> listener: recibe solo los productos
+     * que cambiaron cada vez que llega al menos un cambio.
+     *
+     *      * Proceso:
+     * ADDED y MODIFIED: convierte el documento en Product y lo guarda en el modelo.
+     * REMOVED: elimina el producto del modelo por su ID.
+     * Después de aplicar los cambios, envía los productos cambiados al listener.
+     * Mientras la escucha está activa, sus productos sirven de base a update
+     * para enviar solo los campos cambiados (ListenedProducts).
+     *
+     * Devuelve el ListenerRegistration; llamar a remove() cancela la escucha.
+     *
+     * @param startAfter Último snapshot de la página anterior, o null.
+     * @param endAt      Último snapshot del rango escuchado, o null.
+     * @param store      Modelo local donde se aplican los cambios.
+     * @param listener   Listener para notificar los cambios.
+     */
+    public ListenerRegistration subscribe(@Nullable DocumentSnapshot startAfter, @Nullable DocumentSnapshot endAt,
+                                          ProductStore store, OnSuccessListener<ProductChanges> listener) {
+        return subscribe(startAfter, endAt, store, listener, e -> {
+        }, () -> {
+        });
+    }
+
+    /*
+     * onError: la escucha falló (Firestore la da por terminada).
+     * onApplied: se aplicó un evento al modelo local, también el primero
+     * aunque el rango esté vacío. Los dos se ejecutan en decodeExecutor.
+     */
+    private ListenerRegistration subscribe(@Nullable DocumentSnapshot startAfter, @Nullable DocumentSnapshot endAt,
+                                           ProductStore store, OnSuccessListener<ProductChanges> listener,
+                                           OnFailureListener onError, Runnable onApplied) {
+        Query query = db.collection(COLLECTION_NAME).orderBy(FieldPath.documentId());
+        if (startAfter != null) {
+            query = query.startAfter(startAfter);
+        }
+        if (endAt != null) {
+            query = query.endAt(endAt);
+        }
+
+        // Los cambios se aplican al modelo en decodeExecutor; solo los productos
+        // cambiados se entregan en el hilo principal.
+        final Set<String> range = new HashSet<>();
+        final ListenerRegistration registration = query.addSnapshotListener(decodeExecutor, (snapshots, e) -> {
+            if (e != null) {
+                Log.e(TAG, "onEvent: ", e);
+                listened.release(range);
+                onError.onFailure(e);
+                return;
+            }
+            if (snapshots == null || snapshots.getDocumentChanges().isEmpty()) {
+                onApplied.run();
+                return;
+            }
+            measured(() -> {
+                List<DocumentChange> documentChanges = snapshots.getDocumentChanges();
+                List<Product> updated = new ArrayList<>(documentChanges.size());
+                List<String> removedIds = new ArrayList<>();
+                for (DocumentChange change : documentChanges) {
+                    DocumentSnapshot document = change.getDocument();
+                    switch (change.getType()) {
+                        case ADDED:
+                        case MODIFIED:
+                            Product product = ProductCodec.fromSnapshot(document);
+                            store.put(product);
+                            listened.put(range, product);
+                            updated.add(product);
+                            break;
+                        case REMOVED:
+                            store.remove(document.getId());
+                            listened.remove(range, document.getId());
+                            removedIds.add(document.getId());
+                            break;
+                    }
+                }
+                deliver(listener, new ProductChanges(updated, removedIds));
+            });
+            onApplied.run();
+        });
+        // Se libera en decodeExecutor, después de los eventos que ya estuvieran en cola.
+        return () -> {
+            registration.remove();
+            decodeExecutor.execute(() -> listened.release(range));
+        };
+    }
+
 
         /**
          *      * Método delete
@@ -238,15 +985,769 @@ Listener para notificar el resultado de la operación.
          * @param listener Listener para notificar el resultado de la operación.
          */
         public void delete (String id, OnSuccessListener < Boolean > listener){
+            WriteBehindQueue queue = writeBehind;
+            if (queue != null) {
+                scheduleFlush(queue.enqueueDelete(id, listener));
+                return;
+            }
+
+            final long start = System.nanoTime();
             db.collection(COLLECTION_NAME)
                     .document(id)
                     .delete()
-                    .addOnSuccessListener(unused -> listener.onSuccess(true))
+                    .addOnSuccessListener(unused -> {
+                        cache.invalidate(id);
+                        metrics.record(ProductMetrics.Operation.DELETE, System.nanoTime() - start, 1, 0,
+                                ProductMetrics.Origin.SERVER);
+                        listener.onSuccess(true);
+                    })
                     .addOnFailureListener(e -> {
                         Log.e(TAG, "onFailure: ", e);
+                        metrics.recordFailure(ProductMetrics.Operation.DELETE, System.nanoTime() - start);
                         listener.onSuccess(false);
                     });
         }
+
+    /**
+     *      * Modo write-behind
+     * Junta las escrituras rápidas de un mismo producto.
+     *
+     *      * Explicación
+     * Función: Con el modo activado, update y delete (y updateAsync y
+     * deleteAsync) no escriben en Firestore al momento: se guardan en una WriteBehindQueue por ID de documento y la
+     * última escritura de cada producto reemplaza a las anteriores. La cola se
+     * envía en lotes (WriteBatch) cuando pasan delayMillis sin escrituras
+     * nuevas o cuando llega a maxPending documentos.
+     *
+     * Parámetros:
+     * long delayMillis: espera desde la última escritura antes de enviar la cola.
+     * int maxPending: número de documentos pendientes que fuerza el envío.
+     *
+     *      * Proceso:
+     * enableWriteBehind: activa el modo (si ya estaba activo, envía antes lo pendiente).
+     * disableWriteBehind: envía lo pendiente y vuelve a escribir al momento.
+     * flush: envía ya lo pendiente; se debe llamar en onStop para no perder
+     * escrituras si el proceso termina.
+     * Los listeners de update y delete reciben true o false cuando termina el
+     * lote de su producto. Si un lote falla, sus escrituras se repiten una a
+     * una para que el error de un documento no afecte a los demás, y las que
+     * fallan por un error pasajero vuelven a la cola.
+     * getWriteBehindQueue: contadores de escrituras pedidas, ahorradas y enviadas
+     * (null si el modo está desactivado).
+     */
+    public void enableWriteBehind(long delayMillis, int maxPending) {
+        flush();
+        writeBehindDelayMillis = delayMillis;
+        writeBehind = new WriteBehindQueue(maxPending);
+    }
+
+    public void disableWriteBehind() {
+        flush();
+        writeBehind = null;
+    }
+
+    @Nullable
+    public WriteBehindQueue getWriteBehindQueue() {
+        return writeBehind;
+    }
+
+    public void flush() {
+        flushHandler.removeCallbacks(flushRunnable);
+        WriteBehindQueue queue = writeBehind;
+        if (queue == null) {
+            return;
+        }
+        List<WriteBehindQueue.PendingWrite> writes = queue.drain();
+        if (writes.isEmpty()) {
+            return;
+        }
+        // Un lote mezcla updates y deletes: las métricas se registran por escritura en flushed.
+        final long start = System.nanoTime();
+        commitInChunks(writes, null, (batch, write) -> {
+            DocumentReference reference = db.collection(COLLECTION_NAME).document(write.getId());
+            if (write.isDelete()) {
+                batch.delete(reference);
+            } else {
+                batch.update(reference, ProductCodec.toData(write.getProduct()));
+            }
+            return write.getId();
+        }, result -> {
+            Log.d(TAG, "flush: " + queue);
+            Set<String> failed = new HashSet<>();
+            for (BulkWriteResult.Chunk chunk : result.getChunks()) {
+                if (!chunk.isSuccessful()) {
+                    failed.addAll(chunk.getIds());
+                }
+            }
+            for (WriteBehindQueue.PendingWrite write : writes) {
+                if (!failed.contains(write.getId())) {
+                    flushed(write, true, start);
+                    continue;
+                }
+                // Un WriteBatch falla entero aunque solo falle uno de sus documentos
+                // (por ejemplo NOT_FOUND): cada escritura del lote se repite sola.
+                writePending(write).addOnCompleteListener(task -> {
+                    if (task.isSuccessful()) {
+                        flushed(write, true, start);
+                    } else {
+                        retryPending(queue, write, task.getException(), start);
+                    }
+                });
+            }
+        });
+    }
+
+    // Envía una sola escritura de la cola write-behind, fuera de un WriteBatch.
+    private Task<Void> writePending(WriteBehindQueue.PendingWrite write) {
+        DocumentReference reference = db.collection(COLLECTION_NAME).document(write.getId());
+        return write.isDelete() ? reference.delete() : reference.update(ProductCodec.toData(write.getProduct()));
+    }
+
+    /**
+     * Vuelve a encolar una escritura que falló por un error pasajero
+     * (DeadlineRead.isTransient), hasta WRITE_BEHIND_MAX_ATTEMPTS envíos y
+     * mientras siga activa la misma cola. Cualquier otro error es definitivo y
+     * solo esa escritura recibe false.
+     */
+    private void retryPending(WriteBehindQueue queue, WriteBehindQueue.PendingWrite write, Exception e, long start) {
+        if (DeadlineRead.isTransient(e) && queue == writeBehind
+                && write.getAttempts() + 1 < WRITE_BEHIND_MAX_ATTEMPTS) {
+            scheduleFlush(queue.requeue(write));
+            return;
+        }
+        Log.e(TAG, "flush: " + write.getId(), e);
+        flushed(write, false, start);
+    }
+
+    /*
+     * Actualiza la caché, registra la escritura en metrics (UPDATE o DELETE,
+     * con la latencia desde que empezó el envío) y avisa a sus listeners.
+     */
+    private void flushed(WriteBehindQueue.PendingWrite write, boolean written, long start) {
+        ProductMetrics.Operation operation = write.isDelete()
+                ? ProductMetrics.Operation.DELETE : ProductMetrics.Operation.UPDATE;
+        if (!written) {
+            metrics.recordFailure(operation, System.nanoTime() - start);
+        } else if (write.isDelete()) {
+            cache.invalidate(write.getId());
+            metrics.record(operation, System.nanoTime() - start, 1, 0, ProductMetrics.Origin.SERVER);
+        } else {
+            cacheWritten(write.getId(), write.getProduct());
+            metrics.record(operation, System.nanoTime() - start, 1,
+                    ProductCodec.estimateDocumentBytes(write.getProduct()), ProductMetrics.Origin.SERVER);
+        }
+        for (OnSuccessListener<Boolean> listener : write.getListeners()) {
+            listener.onSuccess(written);
+        }
+    }
+
+    // Reinicia la espera del envío, o envía ya si la cola está llena.
+    private void scheduleFlush(boolean full) {
+        flushHandler.removeCallbacks(flushRunnable);
+        if (full) {
+            flush();
+        } else {
+            flushHandler.postDelayed(flushRunnable, writeBehindDelayMillis);
+        }
+    }
+
+    /**
+     *      * Métodos insertAll, updateAll y deleteAll
+     * Escriben muchos productos con pocas peticiones.
+     *
+     *      * Explicación
+     * Función: En lugar de una petición por documento (como insert, update y
+     * delete), agrupan las escrituras en WriteBatch de hasta MAX_BATCH_SIZE
+     * operaciones (Firestore admite 500 por lote) y confirman como máximo
+     * MAX_PARALLEL_COMMITS lotes a la vez.
+     *
+     * Parámetros:
+     * insertAll: los productos a crear. A cada uno se le asigna su nuevo ID
+     * cuando su lote se confirma; los de los lotes que fallan siguen sin ID.
+     * updateAll: los productos a actualizar; cada uno debe tener su ID.
+     * deleteAll: los IDs de los productos a eliminar.
+     * Los productos de updateAll sin ID y los IDs null de deleteAll no se
+     * envían: se informan en un lote final fallido (con IDs null) en lugar de
+     * lanzar una excepción a mitad de la operación.
+     * OnSuccessListener<BulkWriteResult> listener: recibe el resultado de cada
+     * lote (éxito o error) y el rendimiento total en documentos por segundo.
+     *
+     *      * Proceso:
+     * Divide la lista en lotes, crea un WriteBatch por lote y lanza los primeros
+     * commits. Cada vez que un lote termina se lanza el siguiente, y cuando han
+     * terminado todos se notifica el resultado al listener.
+     */
+    public void insertAll(Collection<Product> products, OnSuccessListener<BulkWriteResult> listener) {
+        commitInChunks(products, ProductMetrics.Operation.INSERT, new BatchOperation<Product>() {
+            @Override
+            public String apply(WriteBatch batch, Product user) {
+                DocumentReference reference = db.collection(COLLECTION_NAME).document();
+                batch.set(reference, ProductCodec.toData(user));
+                return reference.getId();
+            }
+
+            @Override
+            public long bytes(Product user) {
+                return ProductCodec.estimateDocumentBytes(user);
+            }
+
+            @Override
+            public void committed(Product user, String id) {
+                user.setId(id);
+            }
+        }, listener);
+    }
+
+    // Los productos sin cambios respecto a su escucha activa no se envían; el resto solo con sus campos cambiados.
+    public void updateAll(Collection<Product> products, OnSuccessListener<BulkWriteResult> listener) {
+        List<Product> changed = new ArrayList<>(products.size());
+        final Map<String, Map<String, Object>> changesById = new HashMap<>();
+        int withoutId = 0;
+        for (Product user : products) {
+            if (user.getId() == null) {
+                withoutId++;
+                continue;
+            }
+            Map<String, Object> changes = changedFields(user.getId(), user);
+            if (changes == null) {
+                changed.add(user);
+            } else if (!changes.isEmpty()) {
+                changed.add(user);
+                changesById.put(user.getId(), changes);
+            }
+        }
+        commitInChunks(changed, ProductMetrics.Operation.UPDATE, new BatchOperation<Product>() {
+            @Override
+            public String apply(WriteBatch batch, Product user) {
+                DocumentReference reference = db.collection(COLLECTION_NAME).document(user.getId());
+                Map<String, Object> changes = changesById.get(user.getId());
+                batch.update(reference, changes != null ? changes : ProductCodec.toData(user));
+                return user.getId();
+            }
+
+            @Override
+            public long bytes(Product user) {
+                return ProductCodec.estimateDocumentBytes(user);
+            }
+        }, withoutId, listener);
+    }
+
+    public void deleteAll(Collection<String> ids, OnSuccessListener<BulkWriteResult> listener) {
+        List<String> valid = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            if (id != null) {
+                valid.add(id);
+            }
+        }
+        commitInChunks(valid, ProductMetrics.Operation.DELETE, (batch, id) -> {
+            batch.delete(db.collection(COLLECTION_NAME).document(id));
+            return id;
+        }, ids.size() - valid.size(), listener);
+    }
+
+    /**
+     *      * Método migrateLegacyPrices
+     * Escribe el campo "price" en los documentos antiguos que solo lo tienen en "password".
+     *
+     *      * Explicación
+     * Función: Firestore deja fuera de un orderBy("price") los documentos sin
+     * ese campo, así que los productos antiguos no aparecen en las búsquedas
+     * por precio (ProductSort.PRICE_*). Esta migración les añade "price" con
+     * el valor numérico del texto de "password" y borra "password"
+     * (ProductCodec.legacyPriceFields).
+     *
+     * No la ejecuta la app: la lectura de los productos ya entiende
+     * "password" (ProductCodec.fromData). Se ejecuta una sola vez, como
+     * tarea de administración (ver LegacyPriceMigrationTest), en lugar de en
+     * cada dispositivo.
+     *
+     *      * Proceso:
+     * Lee del servidor como mucho limit documentos que aún tienen "password"
+     * (orderBy deja fuera los que no lo tienen, es decir, los ya migrados) y
+     * los actualiza en lotes, igual que updateAll. Cada llamada lee solo
+     * documentos pendientes; quien la usa la repite mientras el resultado
+     * tenga limit documentos. Si dos llamadas migran el mismo documento a la
+     * vez, escriben lo mismo. El listener recibe en el hilo principal el
+     * BulkWriteResult (sin lotes si no quedaba ninguno), o null si la lectura
+     * falla.
+     */
+    public void migrateLegacyPrices(int limit, OnSuccessListener<BulkWriteResult> listener) {
+        db.collection(COLLECTION_NAME)
+                .orderBy(ProductCodec.LEGACY_FIELD_PASSWORD)
+                .limit(limit)
+                .get(Source.SERVER)
+                .addOnSuccessListener(decodeExecutor, snapshot -> {
+                    List<DocumentSnapshot> legacy = snapshot.getDocuments();
+                    commitInChunks(legacy, ProductMetrics.Operation.UPDATE, (batch, document) -> {
+                        batch.update(document.getReference(), ProductCodec.legacyPriceFields(document.getData()));
+                        return document.getId();
+                    }, result -> deliver(listener, result));
+                })
+                .addOnFailureListener(decodeExecutor, e -> {
+                    Log.e(TAG, "migrateLegacyPrices: ", e);
+                    deliver(listener, null);
+                });
+    }
+
+    /**
+     * Añade una escritura al lote y devuelve el ID del documento afectado.
+     * bytes es el tamaño aproximado que se escribe por elemento (para las
+     * métricas). committed se llama en el hilo principal por cada elemento de
+     * un lote que se confirmó con éxito.
+     */
+    private interface BatchOperation<T> {
+        String apply(WriteBatch batch, T item);
+
+        default long bytes(T item) {
+            return 0;
+        }
+
+        default void committed(T item, String id) {
+        }
+    }
+
+    private <T> void commitInChunks(Collection<T> items, @Nullable ProductMetrics.Operation metricsOperation,
+                                    BatchOperation<T> operation, OnSuccessListener<BulkWriteResult> listener) {
+        commitInChunks(items, metricsOperation, operation, 0, listener);
+    }
+
+    /*
+     * metricsOperation: operación con la que se registra cada lote en metrics
+     * (documentos, bytes y latencia del commit), o null si el que llama las
+     * registra por su cuenta.
+     * rejected: elementos que no se pueden escribir (sin ID); se informan en un lote final fallido.
+     */
+    private <T> void commitInChunks(Collection<T> items, @Nullable ProductMetrics.Operation metricsOperation,
+                                    BatchOperation<T> operation, int rejected,
+                                    OnSuccessListener<BulkWriteResult> listener) {
+        List<List<T>> chunks = new ArrayList<>();
+        List<T> current = new ArrayList<>(MAX_BATCH_SIZE);
+        for (T item : items) {
+            current.add(item);
+            if (current.size() == MAX_BATCH_SIZE) {
+                chunks.add(current);
+                current = new ArrayList<>(MAX_BATCH_SIZE);
+            }
+        }
+        if (!current.isEmpty()) {
+            chunks.add(current);
+        }
+        BulkWriteResult.Chunk rejectedChunk = rejected > 0
+                ? new BulkWriteResult.Chunk(chunks.size(), Collections.<String>nCopies(rejected, null),
+                        new IllegalArgumentException(rejected + " productos sin ID"))
+                : null;
+        new ChunkedCommit<>(chunks, metricsOperation, operation, rejectedChunk, listener).start();
+    }
+
+    /**
+     * Lleva el estado de una operación masiva: qué lote toca confirmar, cuántos
+     * han terminado y el resultado de cada uno. rejected, si no es null, es el
+     * lote final con los elementos que no se pudieron enviar.
+     */
+    private class ChunkedCommit<T> {
+        private final List<List<T>> chunks;
+        @Nullable
+        private final ProductMetrics.Operation metricsOperation;
+        private final BatchOperation<T> operation;
+        private final OnSuccessListener<BulkWriteResult> listener;
+        private final BulkWriteResult.Chunk[] results;
+        private final long startMillis = SystemClock.elapsedRealtime();
+        private int nextChunk;
+        private int finishedChunks;
+
+        ChunkedCommit(List<List<T>> chunks, @Nullable ProductMetrics.Operation metricsOperation,
+                      BatchOperation<T> operation, @Nullable BulkWriteResult.Chunk rejected,
+                      OnSuccessListener<BulkWriteResult> listener) {
+            this.chunks = chunks;
+            this.metricsOperation = metricsOperation;
+            this.operation = operation;
+            this.listener = listener;
+            this.results = new BulkWriteResult.Chunk[chunks.size() + (rejected != null ? 1 : 0)];
+            if (rejected != null) {
+                results[chunks.size()] = rejected;
+            }
+        }
+
+        void start() {
+            if (chunks.isEmpty()) {
+                listener.onSuccess(new BulkWriteResult(Arrays.asList(results), 0));
+                return;
+            }
+            for (int i = 0; i < MAX_PARALLEL_COMMITS; i++) {
+                commitNext();
+            }
+        }
+
+        private void commitNext() {
+            final int index;
+            synchronized (this) {
+                if (nextChunk >= chunks.size()) {
+                    return;
+                }
+                index = nextChunk++;
+            }
+
+            WriteBatch batch = db.batch();
+            List<String> ids = new ArrayList<>(chunks.get(index).size());
+            long bytes = 0;
+            for (T item : chunks.get(index)) {
+                ids.add(operation.apply(batch, item));
+                bytes += operation.bytes(item);
+            }
+
+            final long chunkBytes = bytes;
+            final long start = System.nanoTime();
+            batch.commit().addOnCompleteListener(task -> {
+                Exception error = null;
+                if (!task.isSuccessful()) {
+                    error = task.getException() != null ? task.getException() : new Exception("Lote cancelado");
+                    Log.e(TAG, "onFailure: lote " + index, error);
+                    if (metricsOperation != null) {
+                        metrics.recordFailure(metricsOperation, System.nanoTime() - start);
+                    }
+                } else {
+                    if (metricsOperation != null) {
+                        metrics.record(metricsOperation, System.nanoTime() - start, ids.size(), chunkBytes,
+                                ProductMetrics.Origin.SERVER);
+                    }
+                    List<T> items = chunks.get(index);
+                    for (int i = 0; i < items.size(); i++) {
+                        operation.committed(items.get(i), ids.get(i));
+                    }
+                }
+                // Los productos escritos ya no coinciden con la caché de getById.
+                for (String id : ids) {
+                    cache.invalidate(id);
+                }
+                boolean finished;
+                synchronized (this) {
+                    results[index] = new BulkWriteResult.Chunk(index, ids, error);
+                    finished = ++finishedChunks == chunks.size();
+                }
+                if (finished) {
+                    BulkWriteResult result = new BulkWriteResult(Arrays.asList(results), SystemClock.elapsedRealtime() - startMillis);
+                    Log.d(TAG, "bulk: " + result.getWrittenCount() + " documentos, " + result.getDocumentsPerSecond() + " docs/s");
+                    listener.onSuccess(result);
+                } else {
+                    commitNext();
+                }
+            });
+        }
+    }
+
+    /**
+     *      * Métodos importCatalog y exportCatalog
+     * Cargan el catálogo desde un archivo o lo guardan en un archivo.
+     *
+     *      * Explicación
+     * Función: importCatalog reemplaza la carga a mano con insert, uno por uno,
+     * por una importación en lotes de un archivo CSV o JSON lines
+     * (ProductImporter); exportCatalog escribe la colección completa en un
+     * archivo con el mismo formato (ProductExporter).
+     *
+     * Parámetros:
+     * File file: el archivo a leer o a escribir.
+     * ProductFileFormat format: CSV o JSON_LINES (ver ProductFileFormat.fromFileName).
+     * Executor executor: hilo de fondo donde se hace el trabajo, que bloquea
+     * hasta terminar. No puede ser el hilo principal.
+     * OnSuccessListener<TransferResult> listener: recibe en el hilo principal
+     * las filas escritas, las filas por segundo y si terminó o se detuvo.
+     *
+     * importCatalog devuelve el ProductImporter que hace el trabajo: su cancel
+     * detiene la importación al terminar el lote en curso (el listener recibe
+     * el resultado con complete = false) y setProgressListener informa del
+     * avance.
+     *
+     *      * Proceso:
+     * Los dos recorren el archivo o la colección por partes, sin cargarlos
+     * enteros en memoria. La importación guarda un punto de control después de
+     * cada lote; si se detiene, llamar otra vez a importCatalog con el mismo
+     * archivo sigue desde ahí. Al terminar se vacía la caché de getById, porque
+     * la importación puede haber sobrescrito productos que estaban en ella.
+     */
+    public ProductImporter importCatalog(File file, ProductFileFormat format, Executor executor,
+                                         OnSuccessListener<TransferResult> listener) {
+        final ProductImporter importer = new ProductImporter(db, COLLECTION_NAME);
+        executor.execute(() -> {
+            TransferResult result = importer.run(file, format);
+            cache.clear();
+            deliver(listener, result);
+        });
+        return importer;
+    }
+
+    public void exportCatalog(File file, ProductFileFormat format, Executor executor,
+                              OnSuccessListener<TransferResult> listener) {
+        executor.execute(() -> deliver(listener, new ProductExporter(db, COLLECTION_NAME).run(file, format)));
+    }
+
+    /**
+     *      * Métodos asíncronos con CompletableFuture
+     *
+     *      * Explicación
+     * Función: Cada operación de ProductDao tiene una versión que devuelve un
+     * CompletableFuture (insertAsync, updateAsync, getByIdAsync, getAllAsync,
+     * getPageAsync, getStatsAsync, searchAsync, deleteAsync, insertAllAsync, updateAllAsync,
+     * deleteAllAsync y subscribeAsync). A diferencia de los listeners, que informan los errores
+     * con null o false, el futuro termina con la excepción de Firestore
+     * (completeExceptionally), así que las operaciones se pueden encadenar y
+     * combinar (por ejemplo getByIdsAsync, que lee varios IDs en paralelo).
+     * En insertAllAsync, updateAllAsync y deleteAllAsync, si falla algún lote
+     * el futuro termina con una BulkWriteException, que guarda el resultado
+     * de cada lote (algunos pueden haberse escrito).
+     *
+     * Parámetros:
+     * Executor executor: hilo o pool donde se procesa el resultado (conversión
+     * a Product) y donde se ejecutan las etapas que se encadenen con los
+     * métodos no "Async" del futuro. Para la UI se puede pasar
+     * ContextCompat.getMainExecutor(context).
+     *
+     *      * Proceso:
+     * Las lecturas usan la fuente de la política actual: CACHE_ONLY lee de la
+     * caché local, SERVER_ONLY del servidor y DEFAULT usa Source.DEFAULT
+     * (servidor, o caché si no hay conexión).
+     * getByIdAsync termina con null si el documento no existe.
+     * Con el modo write-behind activo, updateAsync y deleteAsync pasan por la
+     * misma cola que update y delete (si no, una escritura encolada más
+     * antigua podría enviarse después y pisar la nueva) y terminan cuando se
+     * envía su lote, con una IOException si la escritura falla.
+     * Aunque no haga falta Firestore (getByIdAsync con el producto en
+     * ProductCache, updateAsync sin cambios), el futuro termina en executor y
+     * no ya terminado, para que las etapas encadenadas no se ejecuten en el
+     * hilo que llama.
+     * Registran en getMetrics las mismas operaciones que las versiones con
+     * listener; los *AllAsync, por lote, igual que insertAll, updateAll y deleteAll.
+     * subscribeAsync registra la escucha de subscribe y termina, con su
+     * ListenerRegistration, cuando el primer resultado ya se aplicó al modelo
+     * local (el rango está cargado); termina con la excepción si la escucha
+     * falla antes. Cancelar el futuro (cancel) deja de escuchar; después de
+     * terminar, se deja de escuchar con remove() del ListenerRegistration.
+     */
+    public CompletableFuture<String> insertAsync(Product user, Executor executor) {
+        final long start = System.nanoTime();
+        return recordFailure(toFuture(db.collection(COLLECTION_NAME).add(ProductCodec.toData(user)), executor)
+                .thenApply(reference -> {
+                    metrics.record(ProductMetrics.Operation.INSERT, System.nanoTime() - start, 1,
+                            ProductCodec.estimateDocumentBytes(user), ProductMetrics.Origin.SERVER);
+                    return reference.getId();
+                }), ProductMetrics.Operation.INSERT, start);
+    }
+
+    public CompletableFuture<Void> updateAsync(String id, Product user, Executor executor) {
+        Map<String, Object> changes = changedFields(id, user);
+        if (changes != null && changes.isEmpty()) {
+            return CompletableFuture.runAsync(() -> {
+            }, executor);
+        }
+        WriteBehindQueue queue = writeBehind;
+        if (queue != null) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            update(id, user, writeBehindListener(id, future, executor));
+            return future;
+        }
+        final long start = System.nanoTime();
+        return recordFailure(toFuture(writeChanges(id, user, changes), executor)
+                .thenApply(unused -> {
+                    cacheWritten(id, user);
+                    metrics.record(ProductMetrics.Operation.UPDATE, System.nanoTime() - start, 1,
+                            ProductCodec.estimateDocumentBytes(user), ProductMetrics.Origin.SERVER);
+                    return null;
+                }), ProductMetrics.Operation.UPDATE, start);
+    }
+
+    public CompletableFuture<Product> getByIdAsync(String id, Executor executor) {
+        final long start = System.nanoTime();
+        Product cached = cache.get(id);
+        if (cached != null) {
+            metrics.record(ProductMetrics.Operation.GET_BY_ID, System.nanoTime() - start, 1,
+                    ProductCodec.estimateDocumentBytes(cached), ProductMetrics.Origin.MEMORY);
+            return CompletableFuture.supplyAsync(() -> cached, executor);
+        }
+        return recordFailure(toFuture(getDocument(id, source()), executor)
+                .thenApply(document -> {
+                    boolean fromCache = document.getMetadata().isFromCache();
+                    if (!document.exists()) {
+                        recordRead(ProductMetrics.Operation.GET_BY_ID, start, Collections.<Product>emptyList(), fromCache);
+                        return null;
+                    }
+                    Product user = ProductCodec.fromSnapshot(document);
+                    cache.put(id, user);
+                    recordRead(ProductMetrics.Operation.GET_BY_ID, start, Collections.singletonList(user), fromCache);
+                    return user;
+                }), ProductMetrics.Operation.GET_BY_ID, start);
+    }
+
+    // Lee varios productos en paralelo y los devuelve en el mismo orden que ids.
+    public CompletableFuture<List<Product>> getByIdsAsync(List<String> ids, Executor executor) {
+        final List<CompletableFuture<Product>> futures = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            futures.add(getByIdAsync(id, executor));
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(unused -> {
+                    List<Product> products = new ArrayList<>(futures.size());
+                    for (CompletableFuture<Product> future : futures) {
+                        products.add(future.join());
+                    }
+                    return products;
+                });
+    }
+
+    public CompletableFuture<List<Product>> getAllAsync(Executor executor) {
+        final long start = System.nanoTime();
+        return recordFailure(toFuture(getCollection(source()), executor)
+                .thenApply(snapshot -> {
+                    List<Product> products = toProducts(snapshot);
+                    recordRead(ProductMetrics.Operation.GET_ALL, start, products, snapshot.getMetadata().isFromCache());
+                    return products;
+                }), ProductMetrics.Operation.GET_ALL, start);
+    }
+
+    public CompletableFuture<ProductPage> getPageAsync(int pageSize, @Nullable DocumentSnapshot startAfter, Executor executor) {
+        final long start = System.nanoTime();
+        return recordFailure(toFuture(getPageSnapshot(pageSize, startAfter, source()), executor)
+                .thenApply(snapshot -> {
+                    ProductPage page = toPage(snapshot, pageSize);
+                    recordRead(ProductMetrics.Operation.GET_PAGE, start, page.getProducts(),
+                            snapshot.getMetadata().isFromCache());
+                    return page;
+                }), ProductMetrics.Operation.GET_PAGE, start);
+    }
+
+    public CompletableFuture<ProductStats> getStatsAsync(Executor executor) {
+        final long start = System.nanoTime();
+        return recordFailure(toFuture(statsQuery().get(AggregateSource.SERVER), executor)
+                .thenApply(snapshot -> {
+                    metrics.record(ProductMetrics.Operation.AGGREGATE, System.nanoTime() - start, 0, 0,
+                            ProductMetrics.Origin.SERVER);
+                    return toStats(snapshot);
+                }), ProductMetrics.Operation.AGGREGATE, start);
+    }
+
+    public CompletableFuture<List<Product>> searchAsync(@Nullable String namePrefix, ProductSort sort, int limit, Executor executor) {
+        final long start = System.nanoTime();
+        return recordFailure(toFuture(searchQuery(namePrefix, sort, limit).get(source()), executor)
+                .thenApply(snapshot -> {
+                    List<Product> products = toProducts(snapshot);
+                    recordRead(ProductMetrics.Operation.SEARCH, start, products, snapshot.getMetadata().isFromCache());
+                    return products;
+                }), ProductMetrics.Operation.SEARCH, start);
+    }
+
+    public CompletableFuture<Void> deleteAsync(String id, Executor executor) {
+        WriteBehindQueue queue = writeBehind;
+        if (queue != null) {
+            CompletableFuture<Void> future = new CompletableFuture<>();
+            delete(id, writeBehindListener(id, future, executor));
+            return future;
+        }
+        final long start = System.nanoTime();
+        return recordFailure(toFuture(db.collection(COLLECTION_NAME).document(id).delete(), executor)
+                .thenApply(unused -> {
+                    cache.invalidate(id);
+                    metrics.record(ProductMetrics.Operation.DELETE, System.nanoTime() - start, 1, 0,
+                            ProductMetrics.Origin.SERVER);
+                    return null;
+                }), ProductMetrics.Operation.DELETE, start);
+    }
+
+    /*
+     * Listener de update o delete que termina future en executor cuando se
+     * envía la escritura encolada en write-behind. La cola solo informa true
+     * o false; el error de Firestore queda en el log (retryPending).
+     */
+    private static OnSuccessListener<Boolean> writeBehindListener(String id, CompletableFuture<Void> future,
+                                                                  Executor executor) {
+        return written -> executor.execute(() -> {
+            if (written) {
+                future.complete(null);
+            } else {
+                future.completeExceptionally(new IOException("No se pudo escribir el producto " + id));
+            }
+        });
+    }
+
+    public CompletableFuture<BulkWriteResult> insertAllAsync(Collection<Product> products, Executor executor) {
+        CompletableFuture<BulkWriteResult> future = new CompletableFuture<>();
+        insertAll(products, result -> executor.execute(() -> completeBulk(future, result)));
+        return future;
+    }
+
+    public CompletableFuture<BulkWriteResult> updateAllAsync(Collection<Product> products, Executor executor) {
+        CompletableFuture<BulkWriteResult> future = new CompletableFuture<>();
+        updateAll(products, result -> executor.execute(() -> completeBulk(future, result)));
+        return future;
+    }
+
+    public CompletableFuture<BulkWriteResult> deleteAllAsync(Collection<String> ids, Executor executor) {
+        CompletableFuture<BulkWriteResult> future = new CompletableFuture<>();
+        deleteAll(ids, result -> executor.execute(() -> completeBulk(future, result)));
+        return future;
+    }
+
+    public CompletableFuture<ListenerRegistration> subscribeAsync(@Nullable DocumentSnapshot startAfter,
+                                                                  @Nullable DocumentSnapshot endAt, ProductStore store,
+                                                                  OnSuccessListener<ProductChanges> listener,
+                                                                  Executor executor) {
+        final CompletableFuture<Void> applied = new CompletableFuture<>();
+        final ListenerRegistration registration = subscribe(startAfter, endAt, store, listener,
+                applied::completeExceptionally, () -> applied.complete(null));
+        CompletableFuture<ListenerRegistration> future = applied.thenApplyAsync(unused -> registration, executor);
+        // Si se cancela el futuro o la escucha falla, se quita la escucha.
+        future.whenComplete((value, error) -> {
+            if (error != null) {
+                registration.remove();
+            }
+        });
+        return future;
+    }
+
+    // Registra un fallo en metrics si future termina con error (cancelarlo no cuenta como fallo).
+    private <T> CompletableFuture<T> recordFailure(CompletableFuture<T> future, ProductMetrics.Operation operation,
+                                                   long start) {
+        future.whenComplete((value, error) -> {
+            if (error != null && !future.isCancelled()) {
+                metrics.recordFailure(operation, System.nanoTime() - start);
+            }
+        });
+        return future;
+    }
+
+    // Termina el futuro con result si se escribieron todos los lotes, o con una BulkWriteException si no.
+    private static void completeBulk(CompletableFuture<BulkWriteResult> future, BulkWriteResult result) {
+        if (result.isSuccessful()) {
+            future.complete(result);
+            return;
+        }
+        Exception cause = null;
+        for (BulkWriteResult.Chunk chunk : result.getChunks()) {
+            if (!chunk.isSuccessful()) {
+                cause = chunk.getError();
+                break;
+            }
+        }
+        future.completeExceptionally(new BulkWriteException(result, cause));
+    }
+
+    /**
+     * Convierte un Task de Firebase en un CompletableFuture. El resultado se
+     * entrega en executor; si el Task falla o se cancela, el futuro termina
+     * con la excepción correspondiente.
+     */
+    private static <T> CompletableFuture<T> toFuture(Task<T> task, Executor executor) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        task.addOnCompleteListener(executor, completed -> {
+            if (completed.isSuccessful()) {
+                future.complete(completed.getResult());
+            } else if (completed.isCanceled()) {
+                future.cancel(false);
+            } else {
+                Log.e(TAG, "onFailure: ", completed.getException());
+                future.completeExceptionally(completed.getException());
+            }
+        });
+        return future;
+    }
     }
 
 /**
@@ -258,5 +1759,26 @@ Listener para notificar el resultado de la operación.
  * eliminar (delete)
  * obtener por ID (getById)
  * obtener todos (getAll)
+ * leer con plazo, reintentos y lectura cubierta (getById y getAll con CallOptions)
+ * obtener por páginas (getPage)
+ * buscar con filtro, orden y límite en el servidor (search)
+ * contar productos y sumar o promediar precios en el servidor (getStats)
+ * escuchar cambios en tiempo real (subscribe)
+ * escribir en lotes (insertAll, updateAll, deleteAll)
+ * enviar solo los campos que cambiaron en update y updateAll
+ * juntar y enviar más tarde las escrituras rápidas (enableWriteBehind, flush)
+ * importar y exportar el catálogo en archivos CSV o JSON lines (importCatalog, exportCatalog)
+ * Las lecturas siguen la política de lectura (ReadPolicy) configurada, y sus
+ * resultados se convierten en un hilo de fondo; solo la entrega final llega
+ * al hilo principal.
+ * getById pasa antes por una caché LRU con TTL (ProductCache) que update y
+ * delete mantienen al día.
+ * Las lecturas iguales en curso (getById del mismo ID, getAll, getPage de la
+ * misma página) comparten una sola petición (ReadCoalescer).
+ * Cada operación registra su latencia, documentos, bytes, origen y errores
+ * en ProductMetrics (getMetrics), que se puede exportar en JSON.
+ * Cada operación tiene además una versión asíncrona que devuelve un
+ * CompletableFuture (insertAsync, getByIdAsync, ...) y termina con la
+ * excepción de Firestore cuando falla.
  * Cada método usa FirebaseFirestore para interactuar con la base de datos Firestore y gestiona los resultados a través de listeners, registrando errores cuando ocurren.
  */
@@ -0,0 +1,125 @@
+package com.example.quiz2android.data.dao;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Explicación de la Clase ProductExporter
+ *
+ * Exporta una colección de productos de Firestore a un archivo CSV o JSON
+ * lines (ProductFileFormat), el formato que lee ProductImporter.
+ *
+ * Cómo funciona:
+ * Recorre la colección por páginas de pageSize ordenadas por ID de documento
+ * (el mismo cursor que ProductDao.getPage), leídas siempre del servidor.
+ * Cada página se convierte con ProductCodec y se escribe en el archivo con un
+ * BufferedWriter antes de pedir la siguiente, así que en memoria solo hay una
+ * página a la vez.
+ * Se escribe primero en "target.tmp" y al terminar se renombra a target:
+ * si la exportación falla, target no queda a medias.
+ *
+ * run bloquea el hilo hasta terminar: se debe llamar fuera del hilo
+ * principal (ProductDao.exportCatalog lo hace en el ejecutor que recibe).
+ */
+public class ProductExporter {
+
+    private static final String TAG = "Quiz 2 Android";
+
+    public static final int DEFAULT_PAGE_SIZE = 500;
+    private static final long READ_TIMEOUT_SECONDS = 60;
+    private static final int WRITE_BUFFER_CHARS = 64 * 1024;
+
+    private final FirebaseFirestore db;
+    private final String collectionName;
+    private final int pageSize;
+
+    public ProductExporter(FirebaseFirestore db, String collectionName) {
+        this(db, collectionName, DEFAULT_PAGE_SIZE);
+    }
+
+    public ProductExporter(FirebaseFirestore db, String collectionName, int pageSize) {
+        this.db = db;
+        this.collectionName = collectionName;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     *      * Método run
+     * Escribe todos los productos de la colección en target.
+     *
+     * Devuelve un TransferResult con los productos escritos y las filas por
+     * segundo. Si algo falla no lanza la excepción: la guarda en el resultado,
+     * con complete = false, y borra el archivo temporal.
+     */
+    public TransferResult run(File target, ProductFileFormat format) {
+        final long start = SystemClock.elapsedRealtime();
+        File temporary = new File(target.getPath() + ".tmp");
+        long rows = 0;
+        try {
+            try (Writer writer = new BufferedWriter(
+                    new OutputStreamWriter(new FileOutputStream(temporary), StandardCharsets.UTF_8), WRITE_BUFFER_CHARS)) {
+                if (format.getHeader() != null) {
+                    writer.write(format.getHeader());
+                    writer.write('\n');
+                }
+                DocumentSnapshot cursor = null;
+                boolean hasMore = true;
+                while (hasMore) {
+                    QuerySnapshot page = Tasks.await(pageQuery(cursor).get(Source.SERVER),
+                            READ_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                    List<DocumentSnapshot> documents = page.getDocuments();
+                    for (DocumentSnapshot document : documents) {
+                        writer.write(format.format(ProductCodec.fromSnapshot(document)));
+                        writer.write('\n');
+                    }
+                    rows += documents.size();
+                    hasMore = documents.size() == pageSize;
+                    cursor = hasMore ? documents.get(documents.size() - 1) : null;
+                }
+            }
+            if (!temporary.renameTo(target)) {
+                throw new IOException("No se pudo crear " + target);
+            }
+        } catch (IOException | ExecutionException | TimeoutException | InterruptedException e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            Log.e(TAG, "export: ", e);
+            if (temporary.exists() && !temporary.delete()) {
+                Log.w(TAG, "export: no se pudo borrar " + temporary);
+            }
+            return new TransferResult(rows, 0, 0, SystemClock.elapsedRealtime() - start, false, e);
+        }
+
+        return new TransferResult(rows, 0, 0, SystemClock.elapsedRealtime() - start, true, null);
+    }
+
+    private Query pageQuery(@Nullable DocumentSnapshot cursor) {
+        Query query = db.collection(collectionName)
+                .orderBy(FieldPath.documentId())
+                .limit(pageSize);
+        return cursor != null ? query.startAfter(cursor) : query;
+    }
+}
@@ -0,0 +1,26 @@
+package com.example.quiz2android.data.dao;
+
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+
+/**
+ * Explicación de la Interfaz ProductFetcher
+ *
+ * Las dos lecturas de Firestore en las que se apoyan getById y getAll (con y
+ * sin CallOptions): un documento por su ID y la colección completa, desde la
+ * fuente indicada (SERVER, CACHE o DEFAULT).
+ *
+ * ProductDao usa por defecto las de Firestore y junta las lecturas iguales en
+ * curso (ReadCoalescer) por encima de ellas. Las pruebas pueden pasar otra
+ * implementación con el constructor de ProductDao marcado @VisibleForTesting,
+ * para simular un servidor lento, errores transitorios o una caché local vacía
+ * sin tocar el código de producción.
+ */
+public interface ProductFetcher {
+
+    Task<DocumentSnapshot> getDocument(String id, Source source);
+
+    Task<QuerySnapshot> getCollection(Source source);
+}
@@ -0,0 +1,370 @@
+package com.example.quiz2android.data.dao;
+
+import androidx.annotation.Nullable;
+
+import com.example.quiz2android.data.model.Product;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Explicación de la Enumeración ProductFileFormat
+ *
+ * Formatos de archivo de la importación y exportación del catálogo
+ * (ProductImporter y ProductExporter). Cada línea del archivo es un producto,
+ * así que se pueden leer y escribir línea a línea sin cargar el archivo
+ * entero en memoria.
+ *
+ * CSV: columnas id,name,price,imageUrl con una cabecera en la primera línea.
+ * Se aceptan también filas "id,name,price" y "name,price" (sin imagen y sin
+ * id), como las de los archivos exportados antes de la imagen. Los valores con
+ * comas o comillas van entre comillas dobles, como en RFC 4180; no se
+ * admiten saltos de línea dentro de un valor.
+ * JSON_LINES: un objeto JSON por línea, con las claves "id" (opcional),
+ * "name", "price" e "imageUrl" (opcional). Las demás claves se ignoran.
+ *
+ * parse: línea -> Product. Devuelve null si la línea no es un producto válido.
+ * format: Product -> línea (sin el salto de línea).
+ * getHeader: primera línea que se escribe al exportar (null si no hay).
+ */
+public enum ProductFileFormat {
+
+    CSV {
+        @Override
+        @Nullable
+        public Product parse(String line) {
+            List<String> values = splitCsv(line);
+            if (values == null || values.size() < 2 || values.size() > 4) {
+                return null;
+            }
+            boolean hasId = values.size() >= 3;
+            return toProduct(hasId ? values.get(0) : null, values.get(hasId ? 1 : 0),
+                    ProductCodec.parsePrice(values.get(hasId ? 2 : 1)),
+                    values.size() == 4 ? values.get(3) : null);
+        }
+
+        @Override
+        public String format(Product product) {
+            return quoteCsv(product.getId()) + ',' + quoteCsv(product.getname()) + ',' + formatPrice(product.getPrice())
+                    + ',' + quoteCsv(product.getImageUrl());
+        }
+
+        @Override
+        @Nullable
+        public String getHeader() {
+            return CSV_HEADER;
+        }
+
+        @Override
+        public boolean isHeader(String line) {
+            String trimmed = line.trim();
+            return trimmed.equalsIgnoreCase(CSV_HEADER) || trimmed.equalsIgnoreCase(CSV_HEADER_WITHOUT_IMAGE)
+                    || trimmed.equalsIgnoreCase(CSV_HEADER_WITHOUT_ID);
+        }
+    },
+
+    JSON_LINES {
+        @Override
+        @Nullable
+        public Product parse(String line) {
+            return new JsonLineReader(line).readProduct();
+        }
+
+        @Override
+        public String format(Product product) {
+            StringBuilder builder = new StringBuilder(64);
+            builder.append('{');
+            if (product.getId() != null) {
+                builder.append("\"id\":");
+                quoteJson(builder, product.getId());
+                builder.append(',');
+            }
+            builder.append("\"name\":");
+            if (product.getname() != null) {
+                quoteJson(builder, product.getname());
+            } else {
+                builder.append("null");
+            }
+            builder.append(",\"price\":").append(formatPrice(product.getPrice()));
+            if (product.getImageUrl() != null) {
+                builder.append(",\"imageUrl\":");
+                quoteJson(builder, product.getImageUrl());
+            }
+            builder.append('}');
+            return builder.toString();
+        }
+
+        @Override
+        @Nullable
+        public String getHeader() {
+            return null;
+        }
+
+        @Override
+        public boolean isHeader(String line) {
+            return false;
+        }
+    };
+
+    private static final String CSV_HEADER = "id,name,price,imageUrl";
+    private static final String CSV_HEADER_WITHOUT_IMAGE = "id,name,price";
+    private static final String CSV_HEADER_WITHOUT_ID = "name,price";
+
+    @Nullable
+    public abstract Product parse(String line);
+
+    public abstract String format(Product product);
+
+    @Nullable
+    public abstract String getHeader();
+
+    // true si la línea es la cabecera del formato y no un producto.
+    public abstract boolean isHeader(String line);
+
+    // .csv -> CSV; cualquier otra extensión (.jsonl, .ndjson, .json) -> JSON_LINES.
+    public static ProductFileFormat fromFileName(String fileName) {
+        return fileName.toLowerCase(Locale.ROOT).endsWith(".csv") ? CSV : JSON_LINES;
+    }
+
+    @Nullable
+    private static Product toProduct(@Nullable String id, @Nullable String name, @Nullable Double price,
+                                     @Nullable String imageUrl) {
+        if (name == null || name.isEmpty() || price == null) {
+            return null;
+        }
+        Product product = new Product(name, price);
+        if (id != null && !id.isEmpty()) {
+            product.setId(id);
+        }
+        if (imageUrl != null && !imageUrl.isEmpty()) {
+            product.setImageUrl(imageUrl);
+        }
+        return product;
+    }
+
+    // Sin ".0" en los precios enteros, y con punto decimal en cualquier idioma.
+    private static String formatPrice(double price) {
+        return price == Math.rint(price) && Math.abs(price) < 1e15
+                ? Long.toString((long) price)
+                : Double.toString(price);
+    }
+
+    // Divide una línea CSV en valores; null si tiene comillas sin cerrar.
+    @Nullable
+    static List<String> splitCsv(String line) {
+        List<String> values = new ArrayList<>(4);
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    value.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    value.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString().trim());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        if (quoted) {
+            return null;
+        }
+        values.add(value.toString().trim());
+        return values;
+    }
+
+    private static String quoteCsv(@Nullable String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.trim().equals(value)) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static void quoteJson(StringBuilder builder, String value) {
+        builder.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"':
+                    builder.append("\\\"");
+                    break;
+                case '\\':
+                    builder.append("\\\\");
+                    break;
+                case '\n':
+                    builder.append("\\n");
+                    break;
+                case '\r':
+                    builder.append("\\r");
+                    break;
+                case '\t':
+                    builder.append("\\t");
+                    break;
+                default:
+                    if (c < 0x20) {
+                        builder.append(String.format(Locale.ROOT, "\\u%04x", (int) c));
+                    } else {
+                        builder.append(c);
+                    }
+            }
+        }
+        builder.append('"');
+    }
+
+    /**
+     * Lector mínimo de un objeto JSON plano en una línea (valores de texto,
+     * número, true, false o null). No usa org.json para que las pruebas
+     * locales puedan ejecutarlo sin Android.
+     */
+    private static final class JsonLineReader {
+        private final String line;
+        private int position;
+
+        JsonLineReader(String line) {
+            this.line = line;
+        }
+
+        @Nullable
+        Product readProduct() {
+            String id = null;
+            String name = null;
+            Double price = null;
+            String imageUrl = null;
+            try {
+                expect('{');
+                if (peek() == '}') {
+                    return null;
+                }
+                do {
+                    String key = readString();
+                    expect(':');
+                    Object value = readValue();
+                    if ("id".equals(key) && value instanceof String) {
+                        id = (String) value;
+                    } else if (ProductCodec.FIELD_NAME.equals(key) && value instanceof String) {
+                        name = (String) value;
+                    } else if (ProductCodec.FIELD_PRICE.equals(key)) {
+                        price = value instanceof Double ? (Double) value
+                                : value instanceof String ? ProductCodec.parsePrice((String) value) : null;
+                    } else if (ProductCodec.FIELD_IMAGE_URL.equals(key) && value instanceof String) {
+                        imageUrl = (String) value;
+                    }
+                } while (consume(','));
+                expect('}');
+                if (peek() != 0) {
+                    return null;
+                }
+            } catch (IllegalArgumentException e) {
+                return null;
+            }
+            return toProduct(id, name, price != null && price >= 0 ? price : null, imageUrl);
+        }
+
+        @Nullable
+        private Object readValue() {
+            char c = peek();
+            if (c == '"') {
+                return readString();
+            }
+            if (line.startsWith("null", position)) {
+                position += 4;
+                return null;
+            }
+            if (line.startsWith("true", position)) {
+                position += 4;
+                return Boolean.TRUE;
+            }
+            if (line.startsWith("false", position)) {
+                position += 5;
+                return Boolean.FALSE;
+            }
+            int start = position;
+            while (position < line.length() && "+-.0123456789eE".indexOf(line.charAt(position)) >= 0) {
+                position++;
+            }
+            // Double.parseDouble lanza NumberFormatException, que es una IllegalArgumentException.
+            return Double.parseDouble(line.substring(start, position));
+        }
+
+        private String readString() {
+            expect('"');
+            StringBuilder builder = new StringBuilder();
+            while (position < line.length()) {
+                char c = line.charAt(position++);
+                if (c == '"') {
+                    return builder.toString();
+                }
+                if (c != '\\') {
+                    builder.append(c);
+                    continue;
+                }
+                if (position >= line.length()) {
+                    break;
+                }
+                char escaped = line.charAt(position++);
+                switch (escaped) {
+                    case 'b':
+                        builder.append('\b');
+                        break;
+                    case 'f':
+                        builder.append('\f');
+                        break;
+                    case 'n':
+                        builder.append('\n');
+                        break;
+                    case 'r':
+                        builder.append('\r');
+                        break;
+                    case 't':
+                        builder.append('\t');
+                        break;
+                    case 'u':
+                        if (position + 4 > line.length()) {
+                            throw new IllegalArgumentException("Escape \\u incompleto");
+                        }
+                        builder.append((char) Integer.parseInt(line.substring(position, position + 4), 16));
+                        position += 4;
+                        break;
+                    default:
+                        builder.append(escaped);
+                }
+            }
+            throw new IllegalArgumentException("Texto sin cerrar");
+        }
+
+        // Siguiente carácter que no es espacio, sin consumirlo (0 al final de la línea).
+        private char peek() {
+            while (position < line.length() && Character.isWhitespace(line.charAt(position))) {
+                position++;
+            }
+            return position < line.length() ? line.charAt(position) : 0;
+        }
+
+        private boolean consume(char expected) {
+            if (peek() == expected) {
+                position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char expected) {
+            if (!consume(expected)) {
+                throw new IllegalArgumentException("Se esperaba '" + expected + "' en la posición " + position);
+            }
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.quiz2android.data.dao;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.annotation.Nullable;
+
+import com.example.quiz2android.data.model.Product;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Explicación de la Clase ProductImporter
+ *
+ * Importa el catálogo de productos desde un archivo CSV o JSON lines
+ * (ProductFileFormat) a una colección de Firestore.
+ *
+ * Cómo funciona:
+ * Lee el archivo línea a línea con un BufferedReader, así que en memoria solo
+ * hay un lote de productos a la vez, sea cual sea el tamaño del archivo.
+ * Cada línea se convierte en un Product y se escribe con ProductCodec.toData.
+ * Las líneas vacías y la cabecera se saltan; las que no son un producto
+ * válido se cuentan en invalidRows y se registran en el log.
+ * Los productos se agrupan en lotes (WriteBatch) de batchSize. Antes de cada
+ * commit se pide permiso al RateLimiter (regla 500/50/5 de Firestore) y se
+ * espera lo que diga; después se espera la confirmación del servidor y se
+ * guarda el punto de control (ImportCheckpoint) junto al archivo.
+ * Al terminar se borra el punto de control.
+ *
+ * Reanudar:
+ * Si la importación se detiene (error, timeout, cancel o cierre de la app),
+ * run se puede llamar otra vez con el mismo archivo: salta las líneas ya
+ * confirmadas y sigue. Los productos sin ID reciben "importId-línea" como ID
+ * de documento, así que un lote que llegó a escribirse pero no a guardarse
+ * en el punto de control se sobrescribe igual en lugar de duplicarse.
+ *
+ * run bloquea el hilo hasta terminar: se debe llamar fuera del hilo
+ * principal (ProductDao.importCatalog lo hace en el ejecutor que recibe).
+ */
+public class ProductImporter {
+
+    /**
+     * Progreso de la importación. Se llama en el hilo de run después de cada
+     * lote confirmado.
+     */
+    public interface ProgressListener {
+        void onProgress(long rows, double rowsPerSecond);
+    }
+
+    private static final String TAG = "Quiz 2 Android";
+
+    // Máximo de operaciones por WriteBatch (el límite de Firestore es 500).
+    public static final int DEFAULT_BATCH_SIZE = 450;
+    // Regla 500/50/5: 500 escrituras por segundo, +50 % cada 5 minutos.
+    private static final double INITIAL_WRITES_PER_SECOND = 500;
+    private static final double MAX_WRITES_PER_SECOND = 2000;
+    private static final long RAMP_INTERVAL_MILLIS = 5 * 60 * 1000;
+    private static final double RAMP_FACTOR = 1.5;
+    // Tiempo máximo de espera de la confirmación de un lote. Sin conexión el
+    // commit no termina nunca: el lote queda pendiente en la caché de Firestore.
+    private static final long COMMIT_TIMEOUT_SECONDS = 60;
+    private static final int READ_BUFFER_CHARS = 64 * 1024;
+    private static final String BYTE_ORDER_MARK = "\uFEFF";
+
+    private final FirebaseFirestore db;
+    private final CollectionReference collection;
+    private final int batchSize;
+    private final RateLimiter rateLimiter;
+    private volatile ProgressListener progressListener;
+    private volatile boolean cancelled;
+
+    public ProductImporter(FirebaseFirestore db, String collectionName) {
+        this(db, collectionName, DEFAULT_BATCH_SIZE, new RateLimiter(INITIAL_WRITES_PER_SECOND, MAX_WRITES_PER_SECOND,
+                RAMP_INTERVAL_MILLIS, RAMP_FACTOR, SystemClock::elapsedRealtime));
+    }
+
+    public ProductImporter(FirebaseFirestore db, String collectionName, int batchSize, RateLimiter rateLimiter) {
+        this.db = db;
+        this.collection = db.collection(collectionName);
+        this.batchSize = batchSize;
+        this.rateLimiter = rateLimiter;
+    }
+
+    public void setProgressListener(@Nullable ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+
+    /**
+     * Detiene la importación al terminar el lote en curso; el punto de control
+     * se conserva. Si run todavía no empezó, termina en cuanto empiece, sin
+     * escribir nada. Se puede llamar desde cualquier hilo.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     *      * Método run
+     * Importa source (o sigue importándolo desde su punto de control).
+     *
+     * Parámetros:
+     * File source: archivo CSV o JSON lines en UTF-8.
+     * ProductFileFormat format: formato del archivo (ver ProductFileFormat.fromFileName).
+     *
+     * Devuelve un TransferResult con los productos escritos en esta ejecución
+     * y las filas por segundo. Si algo falla no lanza la excepción: la guarda
+     * en el resultado, con complete = false.
+     */
+    public TransferResult run(File source, ProductFileFormat format) {
+        try {
+            return importFile(source, format);
+        } finally {
+            // Una cancelación solo afecta a la ejecución en curso (o a la siguiente).
+            cancelled = false;
+        }
+    }
+
+    private TransferResult importFile(File source, ProductFileFormat format) {
+        final long start = SystemClock.elapsedRealtime();
+        File checkpointFile = ImportCheckpoint.fileFor(source);
+        ImportCheckpoint checkpoint = ImportCheckpoint.load(checkpointFile);
+        String importId = checkpoint != null ? checkpoint.getImportId() : collection.document().getId();
+        long resumedFromLine = checkpoint != null ? checkpoint.getLines() : 0;
+        long totalRows = checkpoint != null ? checkpoint.getRows() : 0;
+        long totalInvalidRows = checkpoint != null ? checkpoint.getInvalidRows() : 0;
+        if (cancelled) {
+            return new TransferResult(0, 0, resumedFromLine, SystemClock.elapsedRealtime() - start, false, null);
+        }
+
+        long rows = 0;
+        long invalidRows = 0;
+        long line = 0;
+        WriteBatch batch = db.batch();
+        int pending = 0;
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(source), StandardCharsets.UTF_8), READ_BUFFER_CHARS)) {
+            String text;
+            while ((text = reader.readLine()) != null) {
+                line++;
+                if (line <= resumedFromLine) {
+                    continue;
+                }
+                if (line == 1 && text.startsWith(BYTE_ORDER_MARK)) {
+                    text = text.substring(BYTE_ORDER_MARK.length());
+                }
+                if (text.trim().isEmpty() || format.isHeader(text)) {
+                    continue;
+                }
+                Product product = format.parse(text);
+                // Un "/" en el ID crearía una ruta a otra colección.
+                if (product == null || (product.getId() != null && product.getId().indexOf('/') >= 0)) {
+                    invalidRows++;
+                    Log.w(TAG, "import: línea " + line + " no válida");
+                    continue;
+                }
+                String id = product.getId() != null ? product.getId() : importId + "-" + line;
+                batch.set(collection.document(id), ProductCodec.toData(product));
+                if (++pending < batchSize) {
+                    continue;
+                }
+
+                commit(batch, pending);
+                rows += pending;
+                new ImportCheckpoint(importId, line, totalRows + rows, totalInvalidRows + invalidRows).save(checkpointFile);
+                batch = db.batch();
+                pending = 0;
+                reportProgress(rows, start);
+                if (cancelled) {
+                    return new TransferResult(rows, invalidRows, resumedFromLine,
+                            SystemClock.elapsedRealtime() - start, false, null);
+                }
+            }
+            if (pending > 0) {
+                commit(batch, pending);
+                rows += pending;
+                reportProgress(rows, start);
+            }
+            if (checkpointFile.exists() && !checkpointFile.delete()) {
+                Log.w(TAG, "import: no se pudo borrar " + checkpointFile);
+            }
+        } catch (IOException | ExecutionException | TimeoutException e) {
+            Log.e(TAG, "import: ", e);
+            return new TransferResult(rows, invalidRows, resumedFromLine, SystemClock.elapsedRealtime() - start, false, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new TransferResult(rows, invalidRows, resumedFromLine, SystemClock.elapsedRealtime() - start, false, e);
+        }
+
+        return new TransferResult(rows, invalidRows, resumedFromLine,
+                SystemClock.elapsedRealtime() - start, true, null);
+    }
+
+    // Espera el turno del RateLimiter y la confirmación del lote.
+    private void commit(WriteBatch batch, int size) throws InterruptedException, ExecutionException, TimeoutException {
+        long waitMillis = rateLimiter.reserve(size);
+        if (waitMillis > 0) {
+            Thread.sleep(waitMillis);
+        }
+        Tasks.await(batch.commit(), COMMIT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    private void reportProgress(long rows, long start) {
+        if (progressListener != null) {
+            long elapsed = SystemClock.elapsedRealtime() - start;
+            progressListener.onProgress(rows, elapsed > 0 ? rows * 1000.0 / elapsed : rows);
+        }
+    }
+}
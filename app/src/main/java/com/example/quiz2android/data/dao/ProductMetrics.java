@@ -0,0 +1,241 @@
+package com.example.quiz2android.data.dao;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Explicación de la Clase ProductMetrics
+ *
+ * Reúne las métricas de las operaciones de ProductDao para poder medir la app
+ * sin escribir una línea de log por producto.
+ *
+ * Por cada operación (Operation) guarda:
+ * count y failures: operaciones terminadas con éxito y con error.
+ * documents y bytes: documentos leídos o escritos y su tamaño aproximado
+ * (ver ProductCodec.estimateDocumentBytes).
+ * origins: de dónde salió cada resultado (Origin): la caché en memoria de
+ * ProductDao, la caché local de Firestore o el servidor.
+ * Un histograma de latencias con cubetas fijas (BUCKET_BOUNDS_MICROS), del
+ * que se sacan p50, p90 y p99 aproximados.
+ *
+ * toJson devuelve todo en un JSON, y writeJson lo guarda en un archivo para
+ * sacarlo del dispositivo o de una prueba. Los métodos son synchronized
+ * porque los resultados llegan desde varios hilos.
+ */
+public class ProductMetrics {
+
+    public enum Operation {
+        INSERT, UPDATE, GET_BY_ID, GET_ALL, GET_PAGE, SEARCH, AGGREGATE, DELETE
+    }
+
+    public enum Origin {
+        MEMORY, CACHE, SERVER
+    }
+
+    // Límite superior de cada cubeta, en microsegundos. La última cubeta no tiene límite.
+    private static final long[] BUCKET_BOUNDS_MICROS = {
+            500, 1_000, 2_000, 5_000, 10_000, 20_000, 50_000,
+            100_000, 200_000, 500_000, 1_000_000, 2_000_000, 5_000_000
+    };
+
+    /**
+     * Contadores e histograma de una operación. getStats devuelve una copia,
+     * así que se puede leer sin bloquear a ProductDao.
+     */
+    public static class OperationStats {
+        private long count;
+        private long failures;
+        private long documents;
+        private long bytes;
+        private long totalNanos;
+        private long maxNanos;
+        private final long[] buckets = new long[BUCKET_BOUNDS_MICROS.length + 1];
+        private final long[] origins = new long[Origin.values().length];
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getFailures() {
+            return failures;
+        }
+
+        public long getDocuments() {
+            return documents;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        public long getCount(Origin origin) {
+            return origins[origin.ordinal()];
+        }
+
+        public double getMeanMillis() {
+            long total = count + failures;
+            return total > 0 ? totalNanos / 1e6 / total : 0;
+        }
+
+        public double getMaxMillis() {
+            return maxNanos / 1e6;
+        }
+
+        /**
+         * Percentil aproximado (p entre 0 y 1): el límite superior de la cubeta
+         * donde cae. Para la última cubeta se usa la latencia máxima vista.
+         */
+        public double getPercentileMillis(double p) {
+            long total = count + failures;
+            if (total == 0) {
+                return 0;
+            }
+            long target = (long) Math.ceil(p * total);
+            long seen = 0;
+            for (int i = 0; i < BUCKET_BOUNDS_MICROS.length; i++) {
+                seen += buckets[i];
+                if (seen >= target) {
+                    return Math.min(BUCKET_BOUNDS_MICROS[i] / 1e3, getMaxMillis());
+                }
+            }
+            return getMaxMillis();
+        }
+
+        private void addLatency(long nanos) {
+            totalNanos += nanos;
+            maxNanos = Math.max(maxNanos, nanos);
+            long micros = nanos / 1000;
+            int bucket = 0;
+            while (bucket < BUCKET_BOUNDS_MICROS.length && micros > BUCKET_BOUNDS_MICROS[bucket]) {
+                bucket++;
+            }
+            buckets[bucket]++;
+        }
+
+        private OperationStats copy() {
+            OperationStats copy = new OperationStats();
+            copy.count = count;
+            copy.failures = failures;
+            copy.documents = documents;
+            copy.bytes = bytes;
+            copy.totalNanos = totalNanos;
+            copy.maxNanos = maxNanos;
+            System.arraycopy(buckets, 0, copy.buckets, 0, buckets.length);
+            System.arraycopy(origins, 0, copy.origins, 0, origins.length);
+            return copy;
+        }
+    }
+
+    private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+
+    public ProductMetrics() {
+        reset();
+    }
+
+    // Registra una operación terminada con éxito.
+    public synchronized void record(Operation operation, long nanos, int documents, long bytes, Origin origin) {
+        OperationStats entry = stats.get(operation);
+        entry.count++;
+        entry.documents += documents;
+        entry.bytes += bytes;
+        entry.origins[origin.ordinal()]++;
+        entry.addLatency(nanos);
+    }
+
+    // Registra una operación que terminó con error.
+    public synchronized void recordFailure(Operation operation, long nanos) {
+        OperationStats entry = stats.get(operation);
+        entry.failures++;
+        entry.addLatency(nanos);
+    }
+
+    public synchronized OperationStats getStats(Operation operation) {
+        return stats.get(operation).copy();
+    }
+
+    public synchronized void reset() {
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new OperationStats());
+        }
+    }
+
+    /**
+     * Todas las métricas en JSON, una entrada por operación, por ejemplo:
+     * {"GET_PAGE":{"count":3,"failures":0,"documents":60,"bytes":4200,
+     * "origins":{"MEMORY":0,"CACHE":1,"SERVER":2},"meanMs":84.1,"p50Ms":100.0,
+     * "p90Ms":200.0,"p99Ms":200.0,"maxMs":131.7,"buckets":[0,0,...]}, ...}
+     */
+    public synchronized String toJson() {
+        StringBuilder json = new StringBuilder("{");
+        for (Operation operation : Operation.values()) {
+            OperationStats entry = stats.get(operation);
+            if (operation.ordinal() > 0) {
+                json.append(',');
+            }
+            json.append('"').append(operation.name()).append("\":{")
+                    .append("\"count\":").append(entry.count)
+                    .append(",\"failures\":").append(entry.failures)
+                    .append(",\"documents\":").append(entry.documents)
+                    .append(",\"bytes\":").append(entry.bytes)
+                    .append(",\"origins\":{");
+            for (Origin origin : Origin.values()) {
+                if (origin.ordinal() > 0) {
+                    json.append(',');
+                }
+                json.append('"').append(origin.name()).append("\":").append(entry.origins[origin.ordinal()]);
+            }
+            json.append("},\"meanMs\":").append(format(entry.getMeanMillis()))
+                    .append(",\"p50Ms\":").append(format(entry.getPercentileMillis(0.50)))
+                    .append(",\"p90Ms\":").append(format(entry.getPercentileMillis(0.90)))
+                    .append(",\"p99Ms\":").append(format(entry.getPercentileMillis(0.99)))
+                    .append(",\"maxMs\":").append(format(entry.getMaxMillis()))
+                    .append(",\"buckets\":[");
+            for (int i = 0; i < entry.buckets.length; i++) {
+                if (i > 0) {
+                    json.append(',');
+                }
+                json.append(entry.buckets[i]);
+            }
+            json.append("]}");
+        }
+        return json.append('}').toString();
+    }
+
+    /**
+     * Guarda toJson en un archivo, por ejemplo en getFilesDir() para sacarlo
+     * con "adb shell run-as com.example.quiz2android cat files/product_metrics.json".
+     */
+    public void writeJson(File file) throws IOException {
+        String json = toJson();
+        try (Writer writer = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8)) {
+            writer.write(json);
+        }
+    }
+
+    // Resumen de una línea por operación usada, para el log.
+    @Override
+    public synchronized String toString() {
+        StringBuilder text = new StringBuilder("ProductMetrics{");
+        for (Operation operation : Operation.values()) {
+            OperationStats entry = stats.get(operation);
+            if (entry.count + entry.failures == 0) {
+                continue;
+            }
+            text.append(String.format(Locale.ROOT, " %s: n=%d err=%d docs=%d bytes=%d p50=%.1fms p99=%.1fms;",
+                    operation.name(), entry.count, entry.failures, entry.documents, entry.bytes,
+                    entry.getPercentileMillis(0.50), entry.getPercentileMillis(0.99)));
+        }
+        return text.append(" }").toString();
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+}
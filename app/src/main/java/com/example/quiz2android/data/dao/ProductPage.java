@@ -0,0 +1,45 @@
+package com.example.quiz2android.data.dao;
+
+import androidx.annotation.Nullable;
+
+import com.example.quiz2android.data.model.Product;
+import com.google.firebase.firestore.DocumentSnapshot;
+
+import java.util.List;
+
+/**
+ * Explicación de la Clase ProductPage
+ *
+ * Representa una página de productos leída con ProductDao.getPage. Además de
+ * los productos, guarda el último DocumentSnapshot de la página, que es el
+ * cursor que se pasa a startAfter para pedir la página siguiente.
+ *
+ * products: los productos de esta página, en el orden de la consulta.
+ * lastSnapshot: el cursor de la página (null si la página está vacía).
+ * hasMore: indica si puede haber más páginas después de esta.
+ */
+public class ProductPage {
+
+    private final List<Product> products;
+    private final DocumentSnapshot lastSnapshot;
+    private final boolean hasMore;
+
+    public ProductPage(List<Product> products, @Nullable DocumentSnapshot lastSnapshot, boolean hasMore) {
+        this.products = products;
+        this.lastSnapshot = lastSnapshot;
+        this.hasMore = hasMore;
+    }
+
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    @Nullable
+    public DocumentSnapshot getLastSnapshot() {
+        return lastSnapshot;
+    }
+
+    public boolean hasMore() {
+        return hasMore;
+    }
+}
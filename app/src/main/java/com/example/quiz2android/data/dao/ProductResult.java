@@ -0,0 +1,89 @@
+package com.example.quiz2android.data.dao;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Explicación de la Clase ProductResult
+ *
+ * Resultado de una lectura de ProductDao con CallOptions. A diferencia de los
+ * listeners que devuelven null, distingue por qué no hay datos:
+ *
+ * OK: la lectura terminó; value tiene el producto o la lista (que puede
+ * estar vacía si la colección no tiene productos).
+ * NOT_FOUND: el documento pedido no existe.
+ * TIMEOUT: se cumplió el plazo (CallOptions.deadlineMillis) sin respuesta.
+ * ERROR: Firestore devolvió un error no transitorio, o se agotaron los
+ * reintentos; getError tiene la excepción.
+ *
+ * origin: de dónde salió value (memoria, caché local o servidor); null si no
+ * hay value.
+ * attempts: peticiones al servidor que se hicieron.
+ */
+public class ProductResult<T> {
+
+    public enum Status {
+        OK,
+        NOT_FOUND,
+        TIMEOUT,
+        ERROR
+    }
+
+    private final Status status;
+    private final T value;
+    private final ProductMetrics.Origin origin;
+    private final Exception error;
+    private final int attempts;
+    private final long elapsedMillis;
+
+    public ProductResult(Status status, @Nullable T value, @Nullable ProductMetrics.Origin origin,
+                         @Nullable Exception error, int attempts, long elapsedMillis) {
+        this.status = status;
+        this.value = value;
+        this.origin = origin;
+        this.error = error;
+        this.attempts = attempts;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isOk() {
+        return status == Status.OK;
+    }
+
+    @Nullable
+    public T getValue() {
+        return value;
+    }
+
+    @Nullable
+    public ProductMetrics.Origin getOrigin() {
+        return origin;
+    }
+
+    @Nullable
+    public Exception getError() {
+        return error;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    // El mismo resultado con otro valor (por ejemplo el documento ya convertido en Product).
+    <R> ProductResult<R> withValue(Status status, @Nullable R value) {
+        return new ProductResult<>(status, value, value != null ? origin : null, error, attempts, elapsedMillis);
+    }
+
+    @Override
+    public String toString() {
+        return "ProductResult{status=" + status + ", origin=" + origin + ", attempts=" + attempts
+                + ", elapsedMillis=" + elapsedMillis + ", error=" + error + "}";
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.quiz2android.data.dao;
+
+import androidx.annotation.Nullable;
+
+import com.example.quiz2android.data.model.Product;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Explicación de la Clase ProductSnapshot
+ *
+ * Guarda en un archivo binario compacto la última lista de productos que se
+ * mostró, para poder pintarla al abrir la app antes de que Firestore responda.
+ *
+ * Formato (big-endian):
+ * Cabecera: MAGIC (4 bytes "PSNP"), VERSION (int), savedAtMillis (long) y
+ * número de productos (int).
+ * Cada producto: id y name como cadenas con prefijo de longitud, price
+ * como double (8 bytes) e imageUrl como cadena.
+ * Cadena: longitud en bytes UTF-8 como entero variable (1 byte hasta 127,
+ * 2 bytes hasta 16.383, ...) seguida de los bytes; longitud 0 = null y
+ * longitud n + 1 = cadena de n bytes, para distinguir null de "".
+ *
+ * write: escribe con un FileChannel y un ByteBuffer de BUFFER_BYTES, primero
+ * en un archivo temporal que después se renombra, así que un cierre a mitad
+ * de escritura nunca deja un archivo roto. Hace E/S de disco: no se debe
+ * llamar en el hilo principal.
+ * read: proyecta el archivo en memoria (FileChannel.map) y lo decodifica sin
+ * copias intermedias. Devuelve null si el archivo no existe, es de otra
+ * versión o está dañado; en ese caso simplemente no se muestra nada.
+ *
+ * No usa java.nio.file.Files, que no existe en Android hasta la API 26.
+ */
+public final class ProductSnapshot {
+
+    // "PSNP" en ASCII.
+    private static final int MAGIC = 0x50534E50;
+    // Cambiar la versión si cambia el formato: los archivos antiguos se ignoran.
+    public static final int VERSION = 2;
+    private static final int HEADER_BYTES = 4 + 4 + 8 + 4;
+    private static final int BUFFER_BYTES = 64 * 1024;
+    private static final int PRICE_BYTES = 8;
+    // Un varint de 32 bits ocupa como máximo 5 bytes.
+    private static final int MAX_VARINT_BYTES = 5;
+
+    private final List<Product> products;
+    private final long savedAtMillis;
+
+    private ProductSnapshot(List<Product> products, long savedAtMillis) {
+        this.products = products;
+        this.savedAtMillis = savedAtMillis;
+    }
+
+    public List<Product> getProducts() {
+        return products;
+    }
+
+    // Momento en que se guardó la lista (System.currentTimeMillis()).
+    public long getSavedAtMillis() {
+        return savedAtMillis;
+    }
+
+    public static void write(File file, List<Product> products) throws IOException {
+        File temporary = new File(file.getPath() + ".tmp");
+        try (FileOutputStream output = new FileOutputStream(temporary);
+             FileChannel channel = output.getChannel()) {
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_BYTES);
+            buffer.putInt(MAGIC).putInt(VERSION).putLong(System.currentTimeMillis()).putInt(products.size());
+            for (Product product : products) {
+                putString(channel, buffer, product.getId());
+                putString(channel, buffer, product.getname());
+                ensureRemaining(channel, buffer, PRICE_BYTES);
+                buffer.putDouble(product.getPrice());
+                putString(channel, buffer, product.getImageUrl());
+            }
+            drain(channel, buffer);
+            output.getFD().sync();
+        }
+        if (!temporary.renameTo(file)) {
+            throw new IOException("No se pudo guardar " + file);
+        }
+    }
+
+    @Nullable
+    public static ProductSnapshot read(File file) {
+        if (!file.isFile() || file.length() < HEADER_BYTES) {
+            return null;
+        }
+        try (FileInputStream input = new FileInputStream(file);
+             FileChannel channel = input.getChannel()) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return null;
+            }
+            long savedAtMillis = buffer.getLong();
+            int count = buffer.getInt();
+            // Cada producto ocupa al menos 3 bytes de longitudes y 8 de precio.
+            if (count < 0 || count > buffer.remaining() / (3 + PRICE_BYTES)) {
+                return null;
+            }
+            List<Product> products = new ArrayList<>(count);
+            // Búfer reutilizado para los bytes de cada cadena; las más largas usan uno propio.
+            byte[] scratch = new byte[256];
+            for (int i = 0; i < count; i++) {
+                Product product = new Product();
+                product.setId(getString(buffer, scratch));
+                product.setname(getString(buffer, scratch));
+                product.setPrice(buffer.getDouble());
+                product.setImageUrl(getString(buffer, scratch));
+                products.add(product);
+            }
+            return buffer.hasRemaining() ? null : new ProductSnapshot(products, savedAtMillis);
+        } catch (IOException | BufferUnderflowException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static void putString(FileChannel channel, ByteBuffer buffer, @Nullable String value) throws IOException {
+        if (value == null) {
+            ensureRemaining(channel, buffer, 1);
+            buffer.put((byte) 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        ensureRemaining(channel, buffer, MAX_VARINT_BYTES);
+        putVarint(buffer, bytes.length + 1);
+        if (bytes.length > buffer.capacity()) {
+            // Cadena más grande que el búfer: se escribe directamente.
+            drain(channel, buffer);
+            ByteBuffer large = ByteBuffer.wrap(bytes);
+            while (large.hasRemaining()) {
+                channel.write(large);
+            }
+            return;
+        }
+        ensureRemaining(channel, buffer, bytes.length);
+        buffer.put(bytes);
+    }
+
+    @Nullable
+    private static String getString(ByteBuffer buffer, byte[] scratch) {
+        int length = getVarint(buffer);
+        if (length == 0) {
+            return null;
+        }
+        int bytes = length - 1;
+        if (bytes > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] target = bytes <= scratch.length ? scratch : new byte[bytes];
+        buffer.get(target, 0, bytes);
+        return new String(target, 0, bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void putVarint(ByteBuffer buffer, int value) {
+        while ((value & ~0x7F) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static int getVarint(ByteBuffer buffer) {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            byte b = buffer.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                if (value < 0) {
+                    throw new IllegalArgumentException("Longitud no válida");
+                }
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Longitud no válida");
+    }
+
+    // Si no caben "bytes" más en el búfer, lo escribe en el archivo y lo vacía.
+    private static void ensureRemaining(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            drain(channel, buffer);
+        }
+    }
+
+    private static void drain(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
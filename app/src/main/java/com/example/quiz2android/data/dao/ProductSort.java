@@ -0,0 +1,42 @@
+package com.example.quiz2android.data.dao;
+
+/**
+ * Explicación del enum ProductSort
+ *
+ * Orden en que ProductDao.search devuelve los productos. El orden lo aplica
+ * Firestore en el servidor (orderBy), no la app.
+ *
+ * NAME_ASC / NAME_DESC: por nombre, ascendente o descendente.
+ * PRICE_ASC / PRICE_DESC: por precio, ascendente o descendente.
+ *
+ * Orden por precio y documentos antiguos: al principio el precio se guardaba
+ * como texto en el campo "password", y PRICE_* ordenaba ese texto
+ * alfabéticamente ("100" antes que "20"), no por valor. Ahora ordena el campo
+ * numérico "price" (ver ProductCodec). Firestore deja fuera de un orderBy los
+ * documentos que no tienen el campo; para que los documentos antiguos que
+ * solo tienen "password" aparezcan, ProductDao.migrateLegacyPrices les
+ * escribe "price"; se ejecuta una sola vez, fuera de la app (ver
+ * LegacyPriceMigrationTest).
+ */
+public enum ProductSort {
+    NAME_ASC(ProductCodec.FIELD_NAME, false),
+    NAME_DESC(ProductCodec.FIELD_NAME, true),
+    PRICE_ASC(ProductCodec.FIELD_PRICE, false),
+    PRICE_DESC(ProductCodec.FIELD_PRICE, true);
+
+    private final String field;
+    private final boolean descending;
+
+    ProductSort(String field, boolean descending) {
+        this.field = field;
+        this.descending = descending;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+}
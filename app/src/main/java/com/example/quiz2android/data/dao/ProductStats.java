@@ -0,0 +1,45 @@
+package com.example.quiz2android.data.dao;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Explicación de la Clase ProductStats
+ *
+ * Resultado de ProductDao.getStats: número de productos, suma y promedio de
+ * sus precios. Los calcula Firestore en el servidor (consulta de agregación),
+ * así que llegan en una sola respuesta pequeña sin descargar los documentos.
+ *
+ * count: todos los productos de la colección.
+ * priceSum y priceAverage: solo cuentan los productos con el campo numérico
+ * "price". priceAverage es null si no hay ninguno.
+ */
+public class ProductStats {
+
+    private final long count;
+    private final double priceSum;
+    private final Double priceAverage;
+
+    public ProductStats(long count, double priceSum, @Nullable Double priceAverage) {
+        this.count = count;
+        this.priceSum = priceSum;
+        this.priceAverage = priceAverage;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getPriceSum() {
+        return priceSum;
+    }
+
+    @Nullable
+    public Double getPriceAverage() {
+        return priceAverage;
+    }
+
+    @Override
+    public String toString() {
+        return "ProductStats{count=" + count + ", priceSum=" + priceSum + ", priceAverage=" + priceAverage + "}";
+    }
+}
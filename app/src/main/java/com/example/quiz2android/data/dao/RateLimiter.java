@@ -0,0 +1,64 @@
+package com.example.quiz2android.data.dao;
+
+/**
+ * Explicación de la Clase RateLimiter
+ *
+ * Limita cuántas escrituras por segundo envía la importación del catálogo.
+ *
+ * Firestore recomienda empezar con 500 operaciones por segundo en una
+ * colección y subir como máximo un 50 % cada 5 minutos (la regla "500/50/5"),
+ * para que el servidor tenga tiempo de repartir la carga. RateLimiter aplica
+ * esa rampa: el límite empieza en initialPerSecond, se multiplica por
+ * rampFactor cada rampIntervalMillis y nunca pasa de maxPerSecond.
+ *
+ * reserve: reserva permisos (documentos) y devuelve cuántos milisegundos hay
+ * que esperar antes de enviarlos. No duerme: quien llama decide cómo esperar.
+ * El reloj se puede reemplazar en las pruebas (ProductCache.Clock).
+ */
+public class RateLimiter {
+
+    private final double initialPerSecond;
+    private final double maxPerSecond;
+    private final long rampIntervalMillis;
+    private final double rampFactor;
+    private final ProductCache.Clock clock;
+    private long startMillis = -1;
+    // Momento en que quedan libres los permisos ya reservados.
+    private double nextFreeMillis;
+
+    public RateLimiter(double initialPerSecond, double maxPerSecond, long rampIntervalMillis, double rampFactor,
+                       ProductCache.Clock clock) {
+        if (initialPerSecond <= 0 || maxPerSecond < initialPerSecond || rampFactor < 1) {
+            throw new IllegalArgumentException("Límites no válidos");
+        }
+        this.initialPerSecond = initialPerSecond;
+        this.maxPerSecond = maxPerSecond;
+        this.rampIntervalMillis = rampIntervalMillis;
+        this.rampFactor = rampFactor;
+        this.clock = clock;
+    }
+
+    // Límite actual, en permisos por segundo, según el tiempo transcurrido desde la primera reserva.
+    public synchronized double getRatePerSecond() {
+        if (startMillis < 0 || rampIntervalMillis <= 0) {
+            return initialPerSecond;
+        }
+        long steps = (clock.nowMillis() - startMillis) / rampIntervalMillis;
+        return Math.min(maxPerSecond, initialPerSecond * Math.pow(rampFactor, steps));
+    }
+
+    /**
+     * Reserva permits permisos y devuelve la espera en milisegundos (0 si se
+     * pueden usar ya). Los permisos se reparten en el tiempo al ritmo actual.
+     */
+    public synchronized long reserve(int permits) {
+        long now = clock.nowMillis();
+        if (startMillis < 0) {
+            startMillis = now;
+            nextFreeMillis = now;
+        }
+        double start = Math.max(now, nextFreeMillis);
+        nextFreeMillis = start + permits * 1000.0 / getRatePerSecond();
+        return (long) Math.ceil(start - now);
+    }
+}
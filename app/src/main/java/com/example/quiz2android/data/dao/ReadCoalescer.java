@@ -0,0 +1,78 @@
+package com.example.quiz2android.data.dao;
+
+import com.google.android.gms.tasks.Task;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Explicación de la Clase ReadCoalescer
+ *
+ * Junta las lecturas iguales que están en curso al mismo tiempo. Si se pide
+ * una lectura con una clave (por ejemplo "getAll|SERVER" o
+ * "getById:abc|CACHE") y ya hay una Task con esa clave sin terminar, se
+ * devuelve la misma Task en lugar de hacer otra petición a Firestore. Cada
+ * llamador añade sus propios listeners a la Task compartida, así que todos
+ * reciben el resultado.
+ *
+ * Cuando la Task termina se quita del mapa, de modo que la siguiente lectura
+ * vuelve a ir a Firestore y nunca se devuelven datos viejos.
+ *
+ * getStartedReads: lecturas que sí llegaron a Firestore.
+ * getCoalescedReads: lecturas que se resolvieron con una Task ya en curso.
+ */
+public class ReadCoalescer {
+
+    private final Map<String, Task<?>> inFlight = new HashMap<>();
+    private final AtomicLong startedReads = new AtomicLong();
+    private final AtomicLong coalescedReads = new AtomicLong();
+
+    /**
+     * Devuelve la Task en curso con esa clave o, si no hay ninguna, la crea
+     * con fetch y la registra hasta que termine.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> Task<T> share(String key, Supplier<Task<T>> fetch) {
+        Task<T> task;
+        synchronized (this) {
+            task = (Task<T>) inFlight.get(key);
+            if (task != null) {
+                coalescedReads.incrementAndGet();
+                return task;
+            }
+            task = fetch.get();
+            inFlight.put(key, task);
+            startedReads.incrementAndGet();
+        }
+        // Se ejecuta en el hilo que completa la Task, sin pasar por el hilo principal.
+        final Task<T> started = task;
+        started.addOnCompleteListener(Runnable::run, completed -> remove(key, started));
+        return started;
+    }
+
+    private synchronized void remove(String key, Task<?> task) {
+        if (inFlight.get(key) == task) {
+            inFlight.remove(key);
+        }
+    }
+
+    public long getStartedReads() {
+        return startedReads.get();
+    }
+
+    public long getCoalescedReads() {
+        return coalescedReads.get();
+    }
+
+    public synchronized int getInFlightCount() {
+        return inFlight.size();
+    }
+
+    @Override
+    public String toString() {
+        return "ReadCoalescer{started=" + startedReads.get()
+                + ", coalesced=" + coalescedReads.get() + "}";
+    }
+}
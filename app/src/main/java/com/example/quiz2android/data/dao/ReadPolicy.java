@@ -0,0 +1,22 @@
+package com.example.quiz2android.data.dao;
+
+/**
+ * Explicación del enum ReadPolicy
+ *
+ * Indica de dónde leen los datos los métodos de lectura de ProductDao. Con
+ * cualquiera de ellas el listener se llama una sola vez.
+ *
+ * DEFAULT: lee del servidor y, si no hay conexión, de la caché local de
+ * Firestore (Source.DEFAULT).
+ * SERVER_ONLY: lee siempre del servidor; falla si no hay conexión.
+ * CACHE_ONLY: lee solo de la caché local, sin usar la red.
+ *
+ * Para pintar primero lo que hay en el disco y después el resultado del
+ * servidor se usa ProductDao.getPageCacheThenServer, que tiene su propio
+ * listener de dos etapas (CacheThenServerListener).
+ */
+public enum ReadPolicy {
+    DEFAULT,
+    SERVER_ONLY,
+    CACHE_ONLY
+}
@@ -0,0 +1,74 @@
+package com.example.quiz2android.data.dao;
+
+import androidx.annotation.Nullable;
+
+/**
+ * Explicación de la Clase TransferResult
+ *
+ * Resultado de una importación (ProductImporter) o exportación
+ * (ProductExporter) del catálogo.
+ *
+ * rows: productos escritos en Firestore (importación) o en el archivo
+ * (exportación) en esta ejecución.
+ * invalidRows: líneas del archivo descartadas por no ser un producto válido.
+ * resumedFromLine: línea desde la que siguió una importación interrumpida
+ * (0 si empezó desde el principio).
+ * complete: true si se procesó todo; si es false, error dice por qué se
+ * detuvo (null si se canceló) y la importación se puede repetir para seguir.
+ * getRowsPerSecond: rendimiento de esta ejecución.
+ */
+public class TransferResult {
+
+    private final long rows;
+    private final long invalidRows;
+    private final long resumedFromLine;
+    private final long elapsedMillis;
+    private final boolean complete;
+    private final Exception error;
+
+    public TransferResult(long rows, long invalidRows, long resumedFromLine, long elapsedMillis,
+                          boolean complete, @Nullable Exception error) {
+        this.rows = rows;
+        this.invalidRows = invalidRows;
+        this.resumedFromLine = resumedFromLine;
+        this.elapsedMillis = elapsedMillis;
+        this.complete = complete;
+        this.error = error;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getInvalidRows() {
+        return invalidRows;
+    }
+
+    public long getResumedFromLine() {
+        return resumedFromLine;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    @Nullable
+    public Exception getError() {
+        return error;
+    }
+
+    public double getRowsPerSecond() {
+        return elapsedMillis > 0 ? rows * 1000.0 / elapsedMillis : rows;
+    }
+
+    @Override
+    public String toString() {
+        return "TransferResult{rows=" + rows + ", invalidRows=" + invalidRows + ", resumedFromLine=" + resumedFromLine
+                + ", elapsedMillis=" + elapsedMillis + ", rowsPerSecond=" + getRowsPerSecond()
+                + ", complete=" + complete + ", error=" + error + "}";
+    }
+}
@@ -0,0 +1,174 @@
+package com.example.quiz2android.data.dao;
+
+import androidx.annotation.Nullable;
+
+import com.example.quiz2android.data.model.Product;
+import com.google.android.gms.tasks.OnSuccessListener;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Explicación de la Clase WriteBehindQueue
+ *
+ * Cola de escrituras pendientes del modo "write-behind" de ProductDao. En
+ * lugar de enviar cada update o delete a Firestore en cuanto se pide, se
+ * guardan aquí por ID de documento y se envían juntos más tarde en un
+ * WriteBatch.
+ *
+ * Si llega otra escritura para un ID que ya está en la cola, la nueva
+ * reemplaza a la anterior (gana la última) y solo se envía una. Los listeners
+ * de todas las escrituras juntadas se conservan y reciben el resultado del
+ * envío.
+ *
+ * Contadores:
+ * getRequestedWrites: escrituras pedidas por la app.
+ * getSavedWrites: escrituras que no llegaron a enviarse porque otra más nueva
+ * las reemplazó.
+ * getFlushedWrites y getFlushes: escrituras enviadas y número de envíos.
+ *
+ * Una escritura enviada que falló por un error pasajero se vuelve a poner en
+ * la cola con requeue; getAttempts cuenta los envíos que ya se intentaron.
+ *
+ * Los métodos son synchronized porque se encola desde la UI y se vacía desde
+ * el temporizador o desde el ciclo de vida.
+ */
+public class WriteBehindQueue {
+
+    /**
+     * Escritura pendiente de un documento: los datos a guardar (null si es un
+     * borrado) y los listeners de todas las escrituras que se juntaron en ella.
+     */
+    public static class PendingWrite {
+        private final String id;
+        private Product product;
+        private final List<OnSuccessListener<Boolean>> listeners = new ArrayList<>(1);
+        private int attempts;
+
+        PendingWrite(String id) {
+            this.id = id;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        // Datos del update, o null si la escritura es un borrado.
+        @Nullable
+        public Product getProduct() {
+            return product;
+        }
+
+        public boolean isDelete() {
+            return product == null;
+        }
+
+        public List<OnSuccessListener<Boolean>> getListeners() {
+            return listeners;
+        }
+
+        // Envíos de esta escritura que ya fallaron y se volvieron a encolar.
+        public int getAttempts() {
+            return attempts;
+        }
+    }
+
+    private final int maxPending;
+    private final Map<String, PendingWrite> pending = new LinkedHashMap<>();
+    private long requestedWrites;
+    private long savedWrites;
+    private long flushedWrites;
+    private long flushes;
+
+    public WriteBehindQueue(int maxPending) {
+        this.maxPending = maxPending;
+    }
+
+    /**
+     * Encola una actualización. Devuelve true si la cola llegó a maxPending y
+     * conviene vaciarla ya.
+     */
+    public synchronized boolean enqueueUpdate(String id, Product product, @Nullable OnSuccessListener<Boolean> listener) {
+        return enqueue(id, product, listener);
+    }
+
+    // Encola un borrado. Devuelve true si la cola llegó a maxPending.
+    public synchronized boolean enqueueDelete(String id, @Nullable OnSuccessListener<Boolean> listener) {
+        return enqueue(id, null, listener);
+    }
+
+    private boolean enqueue(String id, @Nullable Product product, @Nullable OnSuccessListener<Boolean> listener) {
+        requestedWrites++;
+        PendingWrite write = pending.get(id);
+        if (write == null) {
+            write = new PendingWrite(id);
+            pending.put(id, write);
+        } else {
+            savedWrites++;
+        }
+        write.product = product;
+        if (listener != null) {
+            write.listeners.add(listener);
+        }
+        return pending.size() >= maxPending;
+    }
+
+    /**
+     * Vuelve a poner en la cola una escritura que ya se sacó con drain y cuyo
+     * envío falló. No cuenta como escritura pedida. Si mientras tanto llegó
+     * otra escritura del mismo ID, gana la nueva y solo se le añaden los
+     * listeners de write. Devuelve true si la cola llegó a maxPending.
+     */
+    public synchronized boolean requeue(PendingWrite write) {
+        PendingWrite newer = pending.get(write.id);
+        if (newer == null) {
+            write.attempts++;
+            pending.put(write.id, write);
+        } else {
+            newer.listeners.addAll(write.listeners);
+        }
+        return pending.size() >= maxPending;
+    }
+
+    // Saca todas las escrituras pendientes, en el orden en que se encolaron.
+    public synchronized List<PendingWrite> drain() {
+        List<PendingWrite> writes = new ArrayList<>(pending.values());
+        pending.clear();
+        if (!writes.isEmpty()) {
+            flushedWrites += writes.size();
+            flushes++;
+        }
+        return writes;
+    }
+
+    public synchronized int size() {
+        return pending.size();
+    }
+
+    public synchronized long getRequestedWrites() {
+        return requestedWrites;
+    }
+
+    public synchronized long getSavedWrites() {
+        return savedWrites;
+    }
+
+    public synchronized long getFlushedWrites() {
+        return flushedWrites;
+    }
+
+    public synchronized long getFlushes() {
+        return flushes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "WriteBehindQueue{pending=" + pending.size()
+                + ", requested=" + requestedWrites
+                + ", saved=" + savedWrites
+                + ", flushed=" + flushedWrites
+                + ", flushes=" + flushes + "}";
+    }
+}
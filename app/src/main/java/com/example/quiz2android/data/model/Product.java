@@ -20,22 +20,26 @@ public class Product {
      *
      * name: Representa el nombre del producto.
      *
-     * password: Almacena una "contraseña" asociada al producto (aunque, por
-     * su nombre, parece ser un campo poco común en un producto, podría
-     * representar algo específico de tu aplicación).
+     * price: El precio del producto, como número. Antes se guardaba como
+     * texto en un campo "password"; al ser numérico, Firestore puede ordenar
+     * por precio y calcular sumas y promedios en el servidor.
+     *
+     * imageUrl: dirección de la imagen del producto (https:// o content://),
+     * o null si no tiene. ProductAdapter la muestra como miniatura con Glide.
      *
      */
 
     private String id;
     private String name;
-    private String password;
+    private double price;
+    private String imageUrl;
 
     /**
      *
      * Constructor vacío: Es necesario para que Firestore pueda crear instancias de
      * esta clase automáticamente al recuperar datos. Firestore necesita un constructor
      * sin argumentos para deserializar los datos y convertirlos en objetos Product.
-     * Constructor completo: Permite crear un objeto Product con un nombre y contraseña
+     * Constructor completo: Permite crear un objeto Product con un nombre y precio
      * definidos al momento de instanciar la clase. Esto es útil al crear nuevos productos.
      *
      */
@@ -45,16 +49,17 @@ public class Product {
     }
 
     // Constructor completo
-    public Product(String name, String password) {
+    public Product(String name, double price) {
         this.name = name;
-        this.password = password;
+        this.price = price;
     }
 
     /**
      *
      * getId y setId: Permiten obtener y establecer el valor del id del producto.
      * getname y setname: Permiten obtener y establecer el nombre del producto.
-     * getPassword y setPassword: Permiten obtener y establecer la contraseña del producto.
+     * getPrice y setPrice: Permiten obtener y establecer el precio del producto.
+     * getImageUrl y setImageUrl: Permiten obtener y establecer la imagen del producto.
      *
      */
     // Getters y Setters
@@ -74,12 +79,20 @@ public class Product {
         this.name = username;
     }
 
-    public String getPassword() {
-        return password;
+    public double getPrice() {
+        return price;
+    }
+
+    public void setPrice(double price) {
+        this.price = price;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
     }
 
-    public void setPassword(String password) {
-        this.password = password;
+    public void setImageUrl(String imageUrl) {
+        this.imageUrl = imageUrl;
     }
 
 }
@@ -0,0 +1,295 @@
+package com.example.quiz2android.data.model;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Explicación de la Clase ProductSearchIndex
+ *
+ * Índice en memoria de trigramas (grupos de 3 caracteres) sobre el nombre de
+ * los productos, para buscar mientras el usuario escribe sin recorrer toda la
+ * lista.
+ *
+ * Cómo funciona:
+ * Cada producto ocupa una posición (slot) y su nombre se normaliza (minúsculas,
+ * sin tildes, espacios simples). Por cada trigrama del nombre se guarda la
+ * lista de slots que lo contienen (postings).
+ * Para buscar un texto de 3 o más caracteres se toma el trigrama menos
+ * frecuente del texto y solo se revisan esos candidatos. Con 1 o 2 caracteres
+ * se usan los trigramas que empiezan por el texto.
+ * Los resultados se ordenan: nombre igual, nombre que empieza por el texto,
+ * palabra que empieza por el texto y, por último, el texto en medio.
+ *
+ * put y remove actualizan solo los trigramas del producto afectado.
+ * estimateBytes y getLastQueryNanos permiten medir memoria y latencia.
+ */
+public class ProductSearchIndex {
+
+    private static final int GRAM = 3;
+    private static final String PADDING = "  ";
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    // Puntuación de cada tipo de coincidencia (mayor es mejor).
+    private static final int SCORE_EXACT = 3;
+    private static final int SCORE_PREFIX = 2;
+    private static final int SCORE_WORD_PREFIX = 1;
+    private static final int SCORE_CONTAINS = 0;
+
+    /**
+     * Lista de enteros que crece sin crear objetos Integer. Se usa para los
+     * postings de cada trigrama.
+     */
+    private static class IntList {
+        int[] values = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        // Quita un valor cambiándolo por el último (el orden no importa).
+        void remove(int value) {
+            for (int i = 0; i < size; i++) {
+                if (values[i] == value) {
+                    values[i] = values[--size];
+                    return;
+                }
+            }
+        }
+    }
+
+    private final TreeMap<String, IntList> postings = new TreeMap<>();
+    private final Map<String, Integer> slotsById = new HashMap<>();
+    private final List<Product> products = new ArrayList<>();
+    private final List<String> names = new ArrayList<>();
+    private final List<Integer> freeSlots = new ArrayList<>();
+    private long lastQueryNanos;
+
+    // Añade o actualiza un producto. Solo se recalculan sus trigramas.
+    public synchronized void put(Product product) {
+        if (product == null || product.getId() == null) {
+            return;
+        }
+        String name = normalize(product.getname());
+        Integer slot = slotsById.get(product.getId());
+        if (slot != null) {
+            if (name.equals(names.get(slot))) {
+                products.set(slot, product);
+                return;
+            }
+            removeGrams(slot, names.get(slot));
+        } else {
+            slot = freeSlots.isEmpty() ? products.size() : freeSlots.remove(freeSlots.size() - 1);
+            if (slot == products.size()) {
+                products.add(null);
+                names.add(null);
+            }
+            slotsById.put(product.getId(), slot);
+        }
+        products.set(slot, product);
+        names.set(slot, name);
+        addGrams(slot, name);
+    }
+
+    public synchronized void remove(String id) {
+        Integer slot = id != null ? slotsById.remove(id) : null;
+        if (slot == null) {
+            return;
+        }
+        removeGrams(slot, names.get(slot));
+        products.set(slot, null);
+        names.set(slot, null);
+        freeSlots.add(slot);
+    }
+
+    public synchronized void clear() {
+        postings.clear();
+        slotsById.clear();
+        products.clear();
+        names.clear();
+        freeSlots.clear();
+    }
+
+    public synchronized int size() {
+        return slotsById.size();
+    }
+
+    /**
+     * Devuelve como máximo limit productos cuyo nombre contiene query,
+     * ordenados por relevancia y después por nombre.
+     */
+    public synchronized List<Product> search(String query, int limit) {
+        long start = System.nanoTime();
+        String normalized = normalize(query);
+        if (normalized.isEmpty() || limit <= 0) {
+            lastQueryNanos = System.nanoTime() - start;
+            return Collections.emptyList();
+        }
+
+        // Montículo con los limit mejores resultados; en la cabeza queda el peor.
+        PriorityQueue<int[]> best = new PriorityQueue<>(limit + 1, Collections.reverseOrder(ranking));
+        BitSet seen = new BitSet(products.size());
+        if (normalized.length() >= GRAM) {
+            IntList candidates = rarestPostings(normalized);
+            if (candidates != null) {
+                collect(candidates, normalized, seen, best, limit);
+            }
+        } else {
+            for (IntList candidates : postings.subMap(normalized, normalized + Character.MAX_VALUE).values()) {
+                collect(candidates, normalized, seen, best, limit);
+            }
+        }
+
+        int[][] matches = best.toArray(new int[best.size()][]);
+        Arrays.sort(matches, ranking);
+        List<Product> result = new ArrayList<>(matches.length);
+        for (int[] match : matches) {
+            result.add(products.get(match[0]));
+        }
+        lastQueryNanos = System.nanoTime() - start;
+        return result;
+    }
+
+    // Duración de la última búsqueda, en nanosegundos.
+    public synchronized long getLastQueryNanos() {
+        return lastQueryNanos;
+    }
+
+    /**
+     * Memoria aproximada del índice: postings (4 bytes por entrada reservada),
+     * claves de trigramas, nombres normalizados y referencias por producto.
+     */
+    public synchronized long estimateBytes() {
+        long bytes = 0;
+        for (Map.Entry<String, IntList> entry : postings.entrySet()) {
+            bytes += 64 + 2L * entry.getKey().length() + 4L * entry.getValue().values.length;
+        }
+        for (String name : names) {
+            if (name != null) {
+                bytes += 40 + 2L * name.length();
+            }
+        }
+        return bytes + 64L * slotsById.size();
+    }
+
+    // Minúsculas, sin tildes y con espacios simples, para comparar nombres.
+    static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        String plain = DIACRITICS.matcher(decomposed).replaceAll("");
+        return SPACES.matcher(plain.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    // Revisa los candidatos y guarda {slot, puntuación} de los mejores limit que coinciden.
+    private void collect(IntList candidates, String query, BitSet seen, PriorityQueue<int[]> best, int limit) {
+        for (int i = 0; i < candidates.size; i++) {
+            int slot = candidates.values[i];
+            if (seen.get(slot)) {
+                continue;
+            }
+            seen.set(slot);
+            String name = names.get(slot);
+            int position = name.indexOf(query);
+            if (position < 0) {
+                continue;
+            }
+            int score;
+            if (name.length() == query.length()) {
+                score = SCORE_EXACT;
+            } else if (position == 0) {
+                score = SCORE_PREFIX;
+            } else if (name.charAt(position - 1) == ' ' || name.indexOf(' ' + query, position) >= 0) {
+                score = SCORE_WORD_PREFIX;
+            } else {
+                score = SCORE_CONTAINS;
+            }
+            if (best.size() < limit) {
+                best.add(new int[]{slot, score});
+            } else if (compare(slot, score, best.peek()) < 0) {
+                best.poll();
+                best.add(new int[]{slot, score});
+            }
+        }
+    }
+
+    // Orden de los resultados: mayor puntuación primero y, a igualdad, por nombre.
+    private final Comparator<int[]> ranking = new Comparator<int[]>() {
+        @Override
+        public int compare(int[] a, int[] b) {
+            return ProductSearchIndex.this.compare(a[0], a[1], b);
+        }
+    };
+
+    private int compare(int slot, int score, int[] other) {
+        if (score != other[1]) {
+            return other[1] - score;
+        }
+        return names.get(slot).compareTo(names.get(other[0]));
+    }
+
+    // Postings del trigrama de query con menos productos (null si alguno no existe).
+    private IntList rarestPostings(String query) {
+        IntList rarest = null;
+        for (int i = 0; i + GRAM <= query.length(); i++) {
+            IntList list = postings.get(query.substring(i, i + GRAM));
+            if (list == null) {
+                return null;
+            }
+            if (rarest == null || list.size < rarest.size) {
+                rarest = list;
+            }
+        }
+        return rarest;
+    }
+
+    // Se rellena el final con espacios para que cada carácter empiece un trigrama.
+    private void addGrams(int slot, String name) {
+        String padded = name + PADDING;
+        for (int i = 0; i + GRAM <= padded.length() && i < name.length(); i++) {
+            String gram = padded.substring(i, i + GRAM);
+            IntList list = postings.get(gram);
+            if (list == null) {
+                list = new IntList();
+                postings.put(gram, list);
+            }
+            // Un trigrama repetido en el mismo nombre se guarda una sola vez.
+            if (padded.indexOf(gram) == i) {
+                list.add(slot);
+            }
+        }
+    }
+
+    private void removeGrams(int slot, String name) {
+        String padded = name + PADDING;
+        for (int i = 0; i + GRAM <= padded.length() && i < name.length(); i++) {
+            String gram = padded.substring(i, i + GRAM);
+            if (padded.indexOf(gram) != i) {
+                continue;
+            }
+            IntList list = postings.get(gram);
+            if (list != null) {
+                list.remove(slot);
+                if (list.size == 0) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.quiz2android.data.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Explicación de la Clase ProductStore
+ *
+ * Es el modelo local en memoria de los productos que la pantalla tiene
+ * cargados. Los productos se guardan por su ID de documento en un TreeMap,
+ * así que quedan en el mismo orden que las consultas de ProductDao (que
+ * ordenan por ID de documento).
+ *
+ * Se alimenta con páginas completas (putAll) y con los cambios sueltos que
+ * llegan de Firestore (put / remove), de modo que aplicar un cambio cuesta lo
+ * mismo sin importar cuántos productos haya cargados.
+ *
+ * Además mantiene un índice de búsqueda por nombre (ProductSearchIndex) que
+ * se actualiza con cada alta, modificación o baja, para buscar mientras el
+ * usuario escribe sin recorrer la lista.
+ *
+ * Los métodos son synchronized porque los cambios pueden llegar desde el
+ * listener de Firestore mientras la pantalla lee la lista.
+ */
+public class ProductStore {
+
+    private final TreeMap<String, Product> products = new TreeMap<>();
+    private final ProductSearchIndex searchIndex = new ProductSearchIndex();
+
+    // Añade o reemplaza un producto. Los productos sin ID no se pueden guardar.
+    public synchronized void put(Product product) {
+        if (product != null && product.getId() != null) {
+            products.put(product.getId(), product);
+            searchIndex.put(product);
+        }
+    }
+
+    // Añade o reemplaza todos los productos de una página.
+    public synchronized void putAll(Collection<Product> page) {
+        if (page == null) {
+            return;
+        }
+        for (Product product : page) {
+            put(product);
+        }
+    }
+
+    // Elimina un producto por su ID. Devuelve el producto eliminado o null.
+    public synchronized Product remove(String id) {
+        if (id == null) {
+            return null;
+        }
+        searchIndex.remove(id);
+        return products.remove(id);
+    }
+
+    public synchronized Product get(String id) {
+        return id != null ? products.get(id) : null;
+    }
+
+    public synchronized int size() {
+        return products.size();
+    }
+
+    public synchronized void clear() {
+        products.clear();
+        searchIndex.clear();
+    }
+
+    // Productos cuyo nombre contiene query, ordenados por relevancia.
+    public List<Product> search(String query, int limit) {
+        return searchIndex.search(query, limit);
+    }
+
+    public ProductSearchIndex getSearchIndex() {
+        return searchIndex;
+    }
+
+    // Devuelve una copia de la lista actual, lista para enviarla al adaptador.
+    public synchronized List<Product> snapshot() {
+        return new ArrayList<>(products.values());
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.quiz2android.data.repository;
+
+import android.os.SystemClock;
+
+import com.example.quiz2android.data.dao.ProductPage;
+import com.google.android.gms.tasks.OnSuccessListener;
+
+/**
+ * Explicación de la Clase PagePrefetch
+ *
+ * Guarda una lectura de la primera página que se empezó antes de que la
+ * pantalla la pidiera (ver ProductRepository.prefetchFirstPage).
+ *
+ * getPage responde una sola vez. Si ya respondió cuando la pantalla se
+ * engancha con attach, la pantalla recibe la página al momento; si no, la
+ * recibe cuando llegue.
+ *
+ * Solo se puede enganchar una pantalla, una vez; después la lectura deja de
+ * servir y la siguiente se hace normalmente.
+ */
+class PagePrefetch {
+
+    private final int pageSize;
+    private final long startedAt = SystemClock.elapsedRealtime();
+    private ProductPage latest;
+    private boolean answered;
+    private boolean attached;
+    private OnSuccessListener<ProductPage> consumer;
+
+    PagePrefetch(int pageSize) {
+        this.pageSize = pageSize;
+    }
+
+    // Resultado de getPage (null si falló). Se llama en el hilo principal.
+    synchronized void onPage(ProductPage page) {
+        latest = page;
+        answered = true;
+        if (consumer != null) {
+            consumer.onSuccess(page);
+        }
+    }
+
+    /**
+     * Engancha la pantalla a esta lectura. Devuelve false si ya se usó, si es
+     * de otro tamaño de página o si es más vieja que maxAgeMillis.
+     */
+    synchronized boolean attach(int pageSize, long maxAgeMillis, OnSuccessListener<ProductPage> listener) {
+        // Una lectura que falló no se reutiliza: es mejor volver a intentarlo.
+        if (attached || pageSize != this.pageSize || !isFresh(maxAgeMillis) || (answered && latest == null)) {
+            return false;
+        }
+        attached = true;
+        consumer = listener;
+        if (answered) {
+            listener.onSuccess(latest);
+        }
+        return true;
+    }
+
+    synchronized boolean isUsable(long maxAgeMillis) {
+        return !attached && isFresh(maxAgeMillis);
+    }
+
+    private boolean isFresh(long maxAgeMillis) {
+        return SystemClock.elapsedRealtime() - startedAt <= maxAgeMillis;
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.quiz2android.data.repository;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import com.example.quiz2android.data.dao.ProductDao;
+import com.example.quiz2android.data.dao.ProductPage;
+import com.example.quiz2android.data.dao.ProductSnapshot;
+import com.example.quiz2android.data.model.Product;
+import com.google.android.gms.tasks.OnSuccessListener;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Explicación de la Clase ProductRepository
+ *
+ * Es el único punto de acceso a los productos para toda la app. Vive en
+ * QuizApplication, así que se crea una sola vez por proceso y sobrevive a
+ * que las actividades se destruyan y se vuelvan a crear.
+ *
+ * Guarda un único ProductDao (con su caché, sus lecturas compartidas y sus
+ * métricas) en lugar de crear uno nuevo cada vez que se abre ProductActivity2.
+ * El DAO escribe al momento: el modo write-behind (ProductDao.enableWriteBehind)
+ * no se activa por defecto, porque retrasa las escrituras y su confirmación.
+ *
+ * Cómo funciona:
+ * start: en un hilo de fondo crea el ProductDao y hace una lectura mínima de
+ * la caché local (ProductDao.warmUp) para que el cliente de Firestore y su
+ * base de datos en disco ya estén abiertos cuando el usuario llegue a la
+ * pantalla de productos. La configuración de Firestore no se aplica aquí:
+ * QuizApplication la aplica antes, en el hilo principal, porque
+ * setFirestoreSettings falla si Firestore ya se usó.
+ * getDao: entrega el ProductDao al listener en el hilo principal cuando la
+ * inicialización termina (al momento si ya terminó). Nunca bloquea al que
+ * llama; como empieza al crear el proceso, normalmente ya está lista cuando
+ * se abre la primera actividad.
+ *
+ * Prelectura de la primera página:
+ * El usuario siempre pasa de MainActivity a ProductActivity2 y pulsa "Leer".
+ * prefetchFirstPage empieza a leer la primera página mientras MainActivity
+ * está visible, y takeFirstPage permite a ProductActivity2 quedarse con esa
+ * lectura (en curso o terminada) en lugar de pedirla otra vez. Una prelectura
+ * se usa una sola vez y caduca a los PREFETCH_MAX_AGE_MS.
+ *
+ * Copia en disco de la lista:
+ * saveSnapshot guarda la última lista mostrada en un archivo binario
+ * (ProductSnapshot) y loadSnapshot la vuelve a leer al abrir la app, para
+ * pintarla antes de que responda Firestore. Las dos trabajan en un hilo de
+ * fondo propio (snapshotExecutor), que además hace que las escrituras se
+ * guarden en orden.
+ */
+public class ProductRepository {
+
+    private static final String TAG = "Quiz 2 Android";
+
+    // Tiempo durante el que una prelectura de la primera página se considera actual.
+    private static final long PREFETCH_MAX_AGE_MS = 30_000;
+
+    private volatile boolean ready;
+    private final Executor snapshotExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ProductRepository-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<Runnable> onReady = new ArrayList<>();
+    private PagePrefetch prefetch;
+    private volatile ProductDao dao;
+    private volatile long initMillis = -1;
+    private File snapshotFile;
+
+    /**
+     * Empieza la inicialización en executor. Se llama una vez, desde
+     * QuizApplication.onCreate, después de configurar Firestore. snapshotFile
+     * es el archivo de saveSnapshot y loadSnapshot.
+     */
+    public void start(Executor executor, File snapshotFile) {
+        this.snapshotFile = snapshotFile;
+        executor.execute(() -> {
+            long start = SystemClock.elapsedRealtime();
+            try {
+                ProductDao created = createDao(FirebaseFirestore.getInstance());
+                synchronized (this) {
+                    dao = created;
+                }
+                created.warmUp();
+                initMillis = SystemClock.elapsedRealtime() - start;
+                Log.d(TAG, "init: " + initMillis + " ms");
+            } catch (RuntimeException e) {
+                Log.e(TAG, "init: ", e);
+            } finally {
+                ready = true;
+                runOnReady();
+            }
+        });
+    }
+
+    /**
+     * Empieza a leer la primera página si no hay ya una prelectura actual sin
+     * usar. Se puede llamar desde el hilo principal: si el DAO aún no está
+     * listo, la lectura empieza en cuanto lo esté.
+     */
+    public void prefetchFirstPage(int pageSize) {
+        final PagePrefetch started;
+        synchronized (this) {
+            if (prefetch != null && prefetch.isUsable(PREFETCH_MAX_AGE_MS)) {
+                return;
+            }
+            started = new PagePrefetch(pageSize);
+            prefetch = started;
+        }
+        getDao(productDao -> productDao.getPage(pageSize, null, started::onPage));
+    }
+
+    /**
+     * Entrega al listener la primera página prelecturada, si hay una actual del
+     * mismo tamaño sin usar, y devuelve true. Si devuelve false no se llamó al
+     * listener y hay que leer la página con ProductDao.getPage.
+     */
+    public boolean takeFirstPage(int pageSize, OnSuccessListener<ProductPage> listener) {
+        PagePrefetch current;
+        synchronized (this) {
+            current = prefetch;
+            prefetch = null;
+        }
+        return current != null && current.attach(pageSize, PREFETCH_MAX_AGE_MS, listener);
+    }
+
+    /**
+     * Lee en segundo plano la última lista guardada con saveSnapshot y la
+     * entrega al listener en el hilo principal (null si no hay ninguna).
+     */
+    public void loadSnapshot(OnSuccessListener<ProductSnapshot> listener) {
+        snapshotExecutor.execute(() -> {
+            long start = SystemClock.elapsedRealtime();
+            ProductSnapshot snapshot = ProductSnapshot.read(snapshotFile);
+            if (snapshot != null) {
+                Log.d(TAG, "snapshot: " + snapshot.getProducts().size() + " productos leídos en "
+                        + (SystemClock.elapsedRealtime() - start) + " ms");
+            }
+            mainHandler.post(() -> listener.onSuccess(snapshot));
+        });
+    }
+
+    /**
+     * Guarda products en segundo plano para la próxima apertura de la app.
+     * products no debe modificarse después (ProductStore.snapshot ya devuelve
+     * una copia).
+     */
+    public void saveSnapshot(List<Product> products) {
+        snapshotExecutor.execute(() -> {
+            long start = SystemClock.elapsedRealtime();
+            try {
+                ProductSnapshot.write(snapshotFile, products);
+                Log.d(TAG, "snapshot: " + products.size() + " productos guardados en "
+                        + (SystemClock.elapsedRealtime() - start) + " ms");
+            } catch (IOException e) {
+                Log.e(TAG, "snapshot: ", e);
+            }
+        });
+    }
+
+    // Ejecuta action cuando termine start (al momento si ya terminó).
+    private void whenReady(Runnable action) {
+        synchronized (onReady) {
+            if (!isReady()) {
+                onReady.add(action);
+                return;
+            }
+        }
+        action.run();
+    }
+
+    private void runOnReady() {
+        List<Runnable> actions;
+        synchronized (onReady) {
+            actions = new ArrayList<>(onReady);
+            onReady.clear();
+        }
+        for (Runnable action : actions) {
+            action.run();
+        }
+    }
+
+    /**
+     * Entrega el ProductDao compartido al listener en el hilo principal, en
+     * cuanto termina start. No bloquea: se puede llamar desde el hilo principal.
+     */
+    public void getDao(OnSuccessListener<ProductDao> listener) {
+        whenReady(() -> mainHandler.post(() -> listener.onSuccess(requireDao())));
+    }
+
+    private synchronized ProductDao requireDao() {
+        // Si la inicialización en segundo plano falló, se crea aquí con la configuración ya aplicada.
+        if (dao == null) {
+            dao = createDao(FirebaseFirestore.getInstance());
+        }
+        return dao;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Duración de la inicialización en segundo plano, en milisegundos (-1 si no terminó).
+    public long getInitMillis() {
+        return initMillis;
+    }
+
+    private static ProductDao createDao(FirebaseFirestore db) {
+        // ReadPolicy.DEFAULT: un solo resultado, del servidor o de la caché local si no hay conexión.
+        return new ProductDao(db);
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.quiz2android.data.dao;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales de CallOptions: esperas entre reintentos con jitter y
+ * validación de las opciones.
+ */
+public class CallOptionsTest {
+
+    @Test
+    public void backoff_growsExponentiallyUpToTheMaximum() {
+        CallOptions options = CallOptions.DEFAULT.withBackoff(100, 1_000);
+        Random random = new Random(42);
+
+        long[] ceilings = {100, 200, 400, 800, 1_000, 1_000};
+        for (int retry = 0; retry < ceilings.length; retry++) {
+            long max = 0;
+            for (int i = 0; i < 1_000; i++) {
+                long delay = options.backoffMillis(retry, random);
+                assertTrue(delay >= 0 && delay < ceilings[retry]);
+                max = Math.max(max, delay);
+            }
+            // Con 1.000 muestras el jitter cubre casi todo el rango.
+            assertTrue(max > ceilings[retry] * 0.9);
+        }
+        assertTrue(options.backoffMillis(100, random) < 1_000);
+    }
+
+    @Test
+    public void with_returnsCopies() {
+        CallOptions hedged = CallOptions.DEFAULT.withHedgeAfter(300).withDeadline(2_000);
+
+        assertFalse(CallOptions.DEFAULT.isHedged());
+        assertTrue(hedged.isHedged());
+        assertEquals(300, hedged.getHedgeAfterMillis());
+        assertEquals(2_000, hedged.getDeadlineMillis());
+        assertEquals(CallOptions.DEFAULT.getMaxAttempts(), hedged.getMaxAttempts());
+    }
+
+    @Test
+    public void constructor_rejectsInvalidOptions() {
+        try {
+            CallOptions.DEFAULT.withDeadline(0);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            // Un plazo de 0 ms no es válido.
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.quiz2android.data.dao;
+
+import com.example.quiz2android.data.model.Product;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales de ListenedProducts: última versión por ID y liberación
+ * de los productos cuando ninguna escucha activa los tiene.
+ */
+public class ListenedProductsTest {
+
+    private static Product product(String id, String name, double price) {
+        Product product = new Product(name, price);
+        product.setId(id);
+        return product;
+    }
+
+    @Test
+    public void put_keepsLatestVersion() {
+        ListenedProducts listened = new ListenedProducts();
+        Set<String> range = new HashSet<>();
+        listened.put(range, product("a", "Manzana", 10));
+        listened.put(range, product("a", "Manzana", 12));
+
+        assertEquals(12, listened.get("a").getPrice(), 0);
+        assertNull(listened.get("b"));
+    }
+
+    @Test
+    public void remove_dropsDeletedProduct() {
+        ListenedProducts listened = new ListenedProducts();
+        Set<String> range = new HashSet<>();
+        listened.put(range, product("a", "Manzana", 10));
+
+        listened.remove(range, "a");
+
+        assertNull(listened.get("a"));
+        assertEquals(0, listened.size());
+    }
+
+    @Test
+    public void release_keepsProductsOfOtherActiveRanges() {
+        ListenedProducts listened = new ListenedProducts();
+        Set<String> first = new HashSet<>();
+        Set<String> second = new HashSet<>();
+        listened.put(first, product("a", "Manzana", 10));
+        listened.put(first, product("b", "Pera", 5));
+        listened.put(second, product("b", "Pera", 5));
+
+        listened.release(first);
+
+        assertNull(listened.get("a"));
+        assertNotNull(listened.get("b"));
+        assertTrue(first.isEmpty());
+
+        listened.release(second);
+
+        assertNull(listened.get("b"));
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.quiz2android.data.dao;
+
+import com.example.quiz2android.data.model.Product;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales de ProductCache: orden LRU, TTL, límite de bytes y contadores.
+ */
+public class ProductCacheTest {
+
+    private long now;
+    private final ProductCache.Clock clock = () -> now;
+
+    @Test
+    public void get_countsHitsAndMisses() {
+        ProductCache cache = new ProductCache(10, Long.MAX_VALUE, 1000, clock);
+        cache.put("a", new Product("Manzana", 10));
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    public void peek_doesNotCountHitsOrMisses() {
+        ProductCache cache = new ProductCache(10, Long.MAX_VALUE, 1000, clock);
+        cache.put("a", new Product("Manzana", 10));
+
+        assertNotNull(cache.peek("a"));
+        assertNull(cache.peek("b"));
+        now = 1000;
+        assertNull(cache.peek("a"));
+        assertEquals(0, cache.getHits());
+        assertEquals(0, cache.getMisses());
+    }
+
+    @Test
+    public void put_evictsLeastRecentlyUsed() {
+        ProductCache cache = new ProductCache(2, Long.MAX_VALUE, 1000, clock);
+        cache.put("a", new Product("A", 1));
+        cache.put("b", new Product("B", 2));
+        cache.get("a");
+        cache.put("c", new Product("C", 3));
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    public void put_respectsByteLimit() {
+        Product product = new Product("Producto", 100);
+        int entryBytes = ProductCache.estimateBytes("a", product);
+        ProductCache cache = new ProductCache(100, entryBytes * 2, 1000, clock);
+        cache.put("a", product);
+        cache.put("b", new Product("Producto", 100));
+        cache.put("c", new Product("Producto", 100));
+
+        assertEquals(2, cache.size());
+        assertTrue(cache.getBytes() <= entryBytes * 2);
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    public void get_expiresAfterTtl() {
+        ProductCache cache = new ProductCache(10, Long.MAX_VALUE, 1000, clock);
+        cache.put("a", new Product("A", 1));
+
+        now = 999;
+        assertNotNull(cache.get("a"));
+        now = 1000;
+        assertNull(cache.get("a"));
+        assertEquals(1, cache.getExpirations());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void invalidate_removesEntry() {
+        ProductCache cache = new ProductCache(10, Long.MAX_VALUE, 1000, clock);
+        cache.put("a", new Product("A", 1));
+        cache.invalidate("a");
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.getBytes());
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.quiz2android.data.dao;
+
+import com.example.quiz2android.data.model.Product;
+import com.google.firebase.firestore.util.CustomClassMapper;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Benchmark local (JVM) de ProductCodec frente a la conversión por reflexión
+ * de Firestore.
+ *
+ * DocumentSnapshot.toObject(Product.class) llama a
+ * CustomClassMapper.convertToCustomClass(getData(), Product.class, ...), así
+ * que aquí se comparan las dos conversiones sobre los mismos Map de campos de
+ * 10.000 documentos. No forma parte de "test" (ver app/build.gradle.kts);
+ * las pruebas del codec están en ProductCodecTest. Los resultados se
+ * imprimen en la salida de la prueba:
+ *
+ * ./gradlew :app:testDebugUnitTest -Pbenchmarks --tests "*ProductCodecBenchmark" -i
+ */
+public class ProductCodecBenchmark {
+
+    private static final int DOCUMENTS = 10_000;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    @Test
+    public void benchmark_decode10kDocuments() {
+        List<String> ids = new ArrayList<>(DOCUMENTS);
+        List<Map<String, Object>> documents = new ArrayList<>(DOCUMENTS);
+        for (int i = 0; i < DOCUMENTS; i++) {
+            Map<String, Object> data = new HashMap<>();
+            data.put(ProductCodec.FIELD_NAME, "Producto " + i);
+            data.put(ProductCodec.FIELD_PRICE, i * 10.0);
+            ids.add("doc-" + i);
+            documents.add(data);
+        }
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            decodeWithReflection(documents);
+            decodeWithCodec(ids, documents);
+        }
+
+        long reflectionNanos = Long.MAX_VALUE;
+        long codecNanos = Long.MAX_VALUE;
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            long start = System.nanoTime();
+            decodeWithReflection(documents);
+            reflectionNanos = Math.min(reflectionNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            decodeWithCodec(ids, documents);
+            codecNanos = Math.min(codecNanos, System.nanoTime() - start);
+        }
+
+        System.out.printf("toObject (reflexión): %.2f ms / %d documentos%n", reflectionNanos / 1e6, DOCUMENTS);
+        System.out.printf("ProductCodec:         %.2f ms / %d documentos%n", codecNanos / 1e6, DOCUMENTS);
+        System.out.printf("Aceleración:          %.1fx%n", (double) reflectionNanos / codecNanos);
+    }
+
+    private static List<Product> decodeWithReflection(List<Map<String, Object>> documents) {
+        List<Product> products = new ArrayList<>(documents.size());
+        for (Map<String, Object> data : documents) {
+            products.add(CustomClassMapper.convertToCustomClass(data, Product.class, null));
+        }
+        return products;
+    }
+
+    private static List<Product> decodeWithCodec(List<String> ids, List<Map<String, Object>> documents) {
+        List<Product> products = new ArrayList<>(documents.size());
+        for (int i = 0; i < documents.size(); i++) {
+            products.add(ProductCodec.fromData(ids.get(i), documents.get(i)));
+        }
+        return products;
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.quiz2android.data.dao;
+
+import com.example.quiz2android.data.model.Product;
+import com.google.firebase.firestore.util.CustomClassMapper;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales (JVM) de ProductCodec: conversión entre Product y los
+ * campos de Firestore, precios antiguos en texto y campos cambiados.
+ */
+public class ProductCodecTest {
+
+    @Test
+    public void fromData_matchesToObject() {
+        Map<String, Object> data = new HashMap<>();
+        data.put(ProductCodec.FIELD_NAME, "Manzana");
+        data.put(ProductCodec.FIELD_PRICE, 1200.0);
+
+        Product reflected = CustomClassMapper.convertToCustomClass(data, Product.class, null);
+        Product decoded = ProductCodec.fromData("doc-1", data);
+
+        assertEquals(reflected.getname(), decoded.getname());
+        assertEquals(reflected.getPrice(), decoded.getPrice(), 0);
+        assertNull(reflected.getId());
+        assertEquals("doc-1", decoded.getId());
+    }
+
+    @Test
+    public void toData_roundTrips() {
+        Product user = new Product("Pera", 800);
+        Product decoded = ProductCodec.fromData("doc-2", ProductCodec.toData(user));
+
+        assertEquals("Pera", decoded.getname());
+        assertEquals(800, decoded.getPrice(), 0);
+    }
+
+    @Test
+    public void fromData_readsLegacyTextPrice() {
+        Map<String, Object> data = new HashMap<>();
+        data.put(ProductCodec.FIELD_NAME, "Manzana");
+        data.put(ProductCodec.LEGACY_FIELD_PASSWORD, "12,5");
+
+        assertEquals(12.5, ProductCodec.fromData("doc-3", data).getPrice(), 0);
+    }
+
+    @Test
+    public void legacyPriceFields_writePriceOnlyWhenMissingAndDropPassword() {
+        Map<String, Object> legacy = new HashMap<>();
+        legacy.put(ProductCodec.FIELD_NAME, "Manzana");
+        legacy.put(ProductCodec.LEGACY_FIELD_PASSWORD, "1200");
+        Map<String, Object> current = new HashMap<>(legacy);
+        current.put(ProductCodec.FIELD_PRICE, 1300.0);
+
+        assertTrue(ProductCodec.hasOnlyLegacyPrice(legacy));
+        assertFalse(ProductCodec.hasOnlyLegacyPrice(current));
+        Map<String, Object> fields = ProductCodec.legacyPriceFields(legacy);
+        assertEquals(2, fields.size());
+        assertEquals(1200.0, (Double) fields.get(ProductCodec.FIELD_PRICE), 0);
+        assertTrue(fields.containsKey(ProductCodec.LEGACY_FIELD_PASSWORD));
+        Map<String, Object> currentFields = ProductCodec.legacyPriceFields(current);
+        assertEquals(1, currentFields.size());
+        assertTrue(currentFields.containsKey(ProductCodec.LEGACY_FIELD_PASSWORD));
+    }
+
+    @Test
+    public void parsePrice_rejectsInvalidText() {
+        assertEquals(1200.0, ProductCodec.parsePrice(" 1200 "), 0);
+        assertNull(ProductCodec.parsePrice("abc"));
+        assertNull(ProductCodec.parsePrice("-5"));
+        assertNull(ProductCodec.parsePrice(""));
+    }
+
+    @Test
+    public void changedFields_onlyReturnsModifiedFields() {
+        Product previous = new Product("Pera", 800);
+
+        Map<String, Object> changes = ProductCodec.changedFields(previous, new Product("Pera", 900));
+
+        assertEquals(1, changes.size());
+        assertEquals(900.0, changes.get(ProductCodec.FIELD_PRICE));
+        assertTrue(ProductCodec.changedFields(previous, new Product("Pera", 800)).isEmpty());
+    }
+
+    @Test
+    public void changedFields_keepsImageWhenEditedWithoutIt() {
+        Product previous = new Product("Pera", 800);
+        previous.setImageUrl("https://example.com/pera.png");
+
+        assertTrue(ProductCodec.changedFields(previous, new Product("Pera", 800)).isEmpty());
+        assertFalse(ProductCodec.toData(new Product("Pera", 800)).containsKey(ProductCodec.FIELD_IMAGE_URL));
+
+        Product next = new Product("Pera", 800);
+        next.setImageUrl("https://example.com/pera-2.png");
+        assertEquals("https://example.com/pera-2.png",
+                ProductCodec.changedFields(previous, next).get(ProductCodec.FIELD_IMAGE_URL));
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.quiz2android.data.dao;
+
+import com.example.quiz2android.data.model.Product;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales de la importación y exportación del catálogo que no
+ * necesitan Firestore: formatos CSV y JSON lines, RateLimiter e
+ * ImportCheckpoint.
+ */
+public class ProductFileFormatTest {
+
+    private long now;
+
+    @Test
+    public void csv_parsesQuotedValuesAndOptionalId() {
+        Product product = ProductFileFormat.CSV.parse("p-1,\"Pera, \"\"conferencia\"\"\",12.5");
+
+        assertEquals("p-1", product.getId());
+        assertEquals("Pera, \"conferencia\"", product.getname());
+        assertEquals(12.5, product.getPrice(), 0);
+        assertNull(ProductFileFormat.CSV.parse("Manzana,10").getId());
+        assertNull(ProductFileFormat.CSV.parse("Manzana,abc"));
+        assertNull(ProductFileFormat.CSV.parse("\"Manzana,10"));
+        assertEquals("https://example.com/pera.png",
+                ProductFileFormat.CSV.parse("p-1,Pera,12.5,https://example.com/pera.png").getImageUrl());
+        assertNull(ProductFileFormat.CSV.parse("p-1,Pera,12.5,").getImageUrl());
+        assertTrue(ProductFileFormat.CSV.isHeader("id,name,price"));
+        assertTrue(ProductFileFormat.CSV.isHeader("id,name,price,imageUrl"));
+    }
+
+    @Test
+    public void jsonLines_parsesAndIgnoresUnknownKeys() {
+        Product product = ProductFileFormat.JSON_LINES.parse(
+                "{\"id\":\"p-2\",\"name\":\"Caf\\u00e9 \\\"molido\\\"\",\"stock\":3,\"price\":1200}");
+
+        assertEquals("p-2", product.getId());
+        assertEquals("Café \"molido\"", product.getname());
+        assertEquals(1200, product.getPrice(), 0);
+        assertNull(ProductFileFormat.JSON_LINES.parse("{\"name\":\"Pera\"}"));
+        assertNull(ProductFileFormat.JSON_LINES.parse("{\"name\":\"Pera\",\"price\":-1}"));
+        assertNull(ProductFileFormat.JSON_LINES.parse("{\"name\":\"Pera\",\"price\":1"));
+    }
+
+    @Test
+    public void format_roundTripsThroughParse() {
+        Product product = new Product("Té, \"verde\"\n", 3.75);
+        product.setId("p-3");
+        product.setImageUrl("https://example.com/te.png?size=\"s\"");
+
+        for (ProductFileFormat format : ProductFileFormat.values()) {
+            if (format == ProductFileFormat.CSV) {
+                // CSV no admite saltos de línea dentro de un valor.
+                product.setname("Té, \"verde\"");
+            }
+            Product parsed = format.parse(format.format(product));
+            assertEquals(format.name(), product.getId(), parsed.getId());
+            assertEquals(format.name(), product.getname(), parsed.getname());
+            assertEquals(format.name(), product.getPrice(), parsed.getPrice(), 0);
+            assertEquals(format.name(), product.getImageUrl(), parsed.getImageUrl());
+        }
+        assertEquals(ProductFileFormat.CSV, ProductFileFormat.fromFileName("catalogo.CSV"));
+        assertEquals(ProductFileFormat.JSON_LINES, ProductFileFormat.fromFileName("catalogo.jsonl"));
+    }
+
+    @Test
+    public void rateLimiter_spacesBatchesAndRampsUp() {
+        RateLimiter limiter = new RateLimiter(500, 1000, 60_000, 1.5, () -> now);
+
+        assertEquals(0, limiter.reserve(500));
+        assertEquals(1000, limiter.reserve(500));
+        assertEquals(2000, limiter.reserve(500));
+
+        now = 60_000;
+        assertEquals(750, limiter.getRatePerSecond(), 0);
+        now = 600_000;
+        assertEquals(1000, limiter.getRatePerSecond(), 0);
+    }
+
+    @Test
+    public void checkpoint_savesAndLoads() throws IOException {
+        File source = File.createTempFile("catalogo", ".csv");
+        File file = ImportCheckpoint.fileFor(source);
+        try {
+            assertNull(ImportCheckpoint.load(file));
+            new ImportCheckpoint("abc", 901, 900, 1).save(file);
+
+            ImportCheckpoint loaded = ImportCheckpoint.load(file);
+            assertEquals("abc", loaded.getImportId());
+            assertEquals(901, loaded.getLines());
+            assertEquals(900, loaded.getRows());
+            assertEquals(1, loaded.getInvalidRows());
+        } finally {
+            file.delete();
+            source.delete();
+        }
+    }
+}
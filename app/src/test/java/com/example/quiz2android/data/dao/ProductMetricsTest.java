@@ -0,0 +1,62 @@
+package com.example.quiz2android.data.dao;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales de ProductMetrics: contadores, percentiles del histograma
+ * y exportación en JSON.
+ */
+public class ProductMetricsTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    @Test
+    public void record_countsDocumentsBytesAndOrigins() {
+        ProductMetrics metrics = new ProductMetrics();
+        metrics.record(ProductMetrics.Operation.GET_PAGE, 3 * MILLIS, 20, 1_000, ProductMetrics.Origin.CACHE);
+        metrics.record(ProductMetrics.Operation.GET_PAGE, 80 * MILLIS, 20, 1_200, ProductMetrics.Origin.SERVER);
+        metrics.recordFailure(ProductMetrics.Operation.GET_PAGE, 5_000 * MILLIS);
+
+        ProductMetrics.OperationStats stats = metrics.getStats(ProductMetrics.Operation.GET_PAGE);
+
+        assertEquals(2, stats.getCount());
+        assertEquals(1, stats.getFailures());
+        assertEquals(40, stats.getDocuments());
+        assertEquals(2_200, stats.getBytes());
+        assertEquals(1, stats.getCount(ProductMetrics.Origin.CACHE));
+        assertEquals(1, stats.getCount(ProductMetrics.Origin.SERVER));
+        assertEquals(0, metrics.getStats(ProductMetrics.Operation.INSERT).getCount());
+    }
+
+    @Test
+    public void percentiles_comeFromHistogramBuckets() {
+        ProductMetrics metrics = new ProductMetrics();
+        for (int i = 0; i < 99; i++) {
+            metrics.record(ProductMetrics.Operation.GET_BY_ID, 4 * MILLIS, 1, 50, ProductMetrics.Origin.SERVER);
+        }
+        metrics.record(ProductMetrics.Operation.GET_BY_ID, 300 * MILLIS, 1, 50, ProductMetrics.Origin.SERVER);
+
+        ProductMetrics.OperationStats stats = metrics.getStats(ProductMetrics.Operation.GET_BY_ID);
+
+        assertEquals(5.0, stats.getPercentileMillis(0.50), 0.001);
+        assertEquals(5.0, stats.getPercentileMillis(0.99), 0.001);
+        assertEquals(300.0, stats.getPercentileMillis(1.0), 0.001);
+        assertEquals(300.0, stats.getMaxMillis(), 0.001);
+    }
+
+    @Test
+    public void toJson_includesEveryOperation() {
+        ProductMetrics metrics = new ProductMetrics();
+        metrics.record(ProductMetrics.Operation.INSERT, MILLIS, 1, 60, ProductMetrics.Origin.SERVER);
+
+        String json = metrics.toJson();
+
+        assertTrue(json.startsWith("{\"INSERT\":{\"count\":1,"));
+        for (ProductMetrics.Operation operation : ProductMetrics.Operation.values()) {
+            assertTrue(json.contains("\"" + operation.name() + "\":{"));
+        }
+        assertTrue(json.endsWith("}"));
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.quiz2android.data.dao;
+
+import com.example.quiz2android.data.model.Product;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Benchmark local (JVM) de ProductSnapshot, la copia binaria en disco de la
+ * lista de productos. Escribe y lee 50.000 productos e imprime los tiempos y
+ * el tamaño del archivo. No forma parte de "test" (ver app/build.gradle.kts);
+ * las pruebas están en ProductSnapshotTest:
+ *
+ * ./gradlew :app:testDebugUnitTest -Pbenchmarks --tests "*ProductSnapshotBenchmark" -i
+ */
+public class ProductSnapshotBenchmark {
+
+    private static final int PRODUCTS = 50_000;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    @Test
+    public void benchmark_50kProducts() throws IOException {
+        List<Product> products = products(PRODUCTS);
+        File file = File.createTempFile("products", ".snapshot");
+        try {
+            for (int i = 0; i < WARMUP_ROUNDS; i++) {
+                ProductSnapshot.write(file, products);
+                ProductSnapshot.read(file);
+            }
+
+            long writeNanos = Long.MAX_VALUE;
+            long readNanos = Long.MAX_VALUE;
+            ProductSnapshot snapshot = null;
+            for (int i = 0; i < MEASURED_ROUNDS; i++) {
+                long start = System.nanoTime();
+                ProductSnapshot.write(file, products);
+                writeNanos = Math.min(writeNanos, System.nanoTime() - start);
+
+                start = System.nanoTime();
+                snapshot = ProductSnapshot.read(file);
+                readNanos = Math.min(readNanos, System.nanoTime() - start);
+            }
+
+            assertEquals(PRODUCTS, snapshot.getProducts().size());
+            assertEquals(products.get(PRODUCTS - 1).getname(), snapshot.getProducts().get(PRODUCTS - 1).getname());
+            System.out.printf("Archivo:   %.2f MB / %d productos%n", file.length() / (1024.0 * 1024.0), PRODUCTS);
+            System.out.printf("Escritura: %.2f ms%n", writeNanos / 1e6);
+            System.out.printf("Lectura:   %.2f ms%n", readNanos / 1e6);
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static List<Product> products(int count) {
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Product product = new Product(i % 4 == 0
+                    ? "Producto de prueba con un nombre bastante largo número " + i
+                    : "Producto " + i, i * 10.5);
+            product.setId("doc-" + i);
+            products.add(product);
+        }
+        return products;
+    }
+}
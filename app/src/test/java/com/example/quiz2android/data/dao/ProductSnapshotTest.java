@@ -0,0 +1,87 @@
+package com.example.quiz2android.data.dao;
+
+import com.example.quiz2android.data.model.Product;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales de ProductSnapshot, la copia binaria en disco de la lista
+ * de productos: ida y vuelta de los campos (también imageUrl) y archivos que
+ * no existen, están truncados o son de otra versión.
+ */
+public class ProductSnapshotTest {
+
+    @Test
+    public void read_returnsWhatWasWritten() throws IOException {
+        char[] longName = new char[70_000];
+        Arrays.fill(longName, 'ñ');
+        Product withoutId = new Product("", 0);
+        Product unicode = new Product("Café ☕ 😀", 12.5);
+        unicode.setId("p-1");
+        unicode.setImageUrl("https://example.com/café.png");
+        Product large = new Product(new String(longName), Double.MAX_VALUE);
+        large.setId("p-2");
+
+        File file = File.createTempFile("products", ".snapshot");
+        try {
+            ProductSnapshot.write(file, Arrays.asList(withoutId, unicode, large));
+            List<Product> products = ProductSnapshot.read(file).getProducts();
+
+            assertEquals(3, products.size());
+            assertNull(products.get(0).getId());
+            assertEquals("", products.get(0).getname());
+            assertEquals("p-1", products.get(1).getId());
+            assertEquals("Café ☕ 😀", products.get(1).getname());
+            assertEquals(12.5, products.get(1).getPrice(), 0);
+            assertNull(products.get(0).getImageUrl());
+            assertEquals("https://example.com/café.png", products.get(1).getImageUrl());
+            assertEquals(large.getname(), products.get(2).getname());
+            assertEquals(Double.MAX_VALUE, products.get(2).getPrice(), 0);
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void read_ignoresMissingTruncatedAndOtherVersions() throws IOException {
+        File file = File.createTempFile("products", ".snapshot");
+        try {
+            ProductSnapshot.write(file, products(10));
+            try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+                raw.setLength(raw.length() - 3);
+            }
+            assertNull(ProductSnapshot.read(file));
+
+            ProductSnapshot.write(file, products(10));
+            try (RandomAccessFile raw = new RandomAccessFile(file, "rw")) {
+                raw.seek(4);
+                raw.writeInt(ProductSnapshot.VERSION + 1);
+            }
+            assertNull(ProductSnapshot.read(file));
+        } finally {
+            file.delete();
+        }
+        assertNull(ProductSnapshot.read(file));
+    }
+
+    private static List<Product> products(int count) {
+        List<Product> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Product product = new Product(i % 4 == 0
+                    ? "Producto de prueba con un nombre bastante largo número " + i
+                    : "Producto " + i, i * 10.5);
+            product.setId("doc-" + i);
+            products.add(product);
+        }
+        return products;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.quiz2android.data.dao;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales de ReadCoalescer: una lectura en curso se comparte entre
+ * los llamadores con la misma clave, y se olvida al terminar con éxito o con
+ * error para que la siguiente vuelva a Firestore.
+ */
+public class ReadCoalescerTest {
+
+    @Test
+    public void share_reusesInFlightTaskForSameKey() {
+        ReadCoalescer coalescer = new ReadCoalescer();
+        TaskCompletionSource<String> source = new TaskCompletionSource<>();
+        AtomicInteger fetches = new AtomicInteger();
+
+        Task<String> first = coalescer.share("getById:a|SERVER", () -> {
+            fetches.incrementAndGet();
+            return source.getTask();
+        });
+        Task<String> second = coalescer.share("getById:a|SERVER", () -> {
+            fetches.incrementAndGet();
+            return new TaskCompletionSource<String>().getTask();
+        });
+
+        assertSame(first, second);
+        assertEquals(1, fetches.get());
+        assertEquals(1, coalescer.getStartedReads());
+        assertEquals(1, coalescer.getCoalescedReads());
+        assertEquals(1, coalescer.getInFlightCount());
+    }
+
+    @Test
+    public void share_keepsDifferentKeysApart() {
+        ReadCoalescer coalescer = new ReadCoalescer();
+
+        Task<String> cache = coalescer.share("getById:a|CACHE", () -> new TaskCompletionSource<String>().getTask());
+        Task<String> server = coalescer.share("getById:a|SERVER", () -> new TaskCompletionSource<String>().getTask());
+
+        assertNotSame(cache, server);
+        assertEquals(2, coalescer.getStartedReads());
+        assertEquals(0, coalescer.getCoalescedReads());
+        assertEquals(2, coalescer.getInFlightCount());
+    }
+
+    @Test
+    public void share_evictsTaskWhenItSucceeds() {
+        ReadCoalescer coalescer = new ReadCoalescer();
+        TaskCompletionSource<String> source = new TaskCompletionSource<>();
+        Task<String> first = coalescer.share("getAll|SERVER", source::getTask);
+
+        source.setResult("resultado");
+
+        assertEquals(0, coalescer.getInFlightCount());
+        Task<String> next = coalescer.share("getAll|SERVER", () -> new TaskCompletionSource<String>().getTask());
+        assertNotSame(first, next);
+        assertEquals(2, coalescer.getStartedReads());
+        assertEquals(0, coalescer.getCoalescedReads());
+    }
+
+    @Test
+    public void share_evictsTaskWhenItFails() {
+        ReadCoalescer coalescer = new ReadCoalescer();
+        TaskCompletionSource<String> source = new TaskCompletionSource<>();
+        Task<String> first = coalescer.share("getAll|SERVER", source::getTask);
+
+        source.setException(new Exception("sin conexión"));
+
+        assertEquals(0, coalescer.getInFlightCount());
+        Task<String> retry = coalescer.share("getAll|SERVER", () -> new TaskCompletionSource<String>().getTask());
+        assertNotSame(first, retry);
+        assertEquals(2, coalescer.getStartedReads());
+    }
+}
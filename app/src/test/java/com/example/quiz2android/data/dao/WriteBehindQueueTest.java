@@ -0,0 +1,101 @@
+package com.example.quiz2android.data.dao;
+
+import com.example.quiz2android.data.model.Product;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales de WriteBehindQueue: última escritura gana, listeners
+ * conservados, umbral de tamaño, reintentos y contadores de escrituras
+ * ahorradas.
+ */
+public class WriteBehindQueueTest {
+
+    @Test
+    public void enqueue_lastWriteWinsAndKeepsListeners() {
+        WriteBehindQueue queue = new WriteBehindQueue(10);
+        queue.enqueueUpdate("a", new Product("Manzana", 10), result -> { });
+        queue.enqueueUpdate("a", new Product("Manzana", 12), result -> { });
+        queue.enqueueUpdate("b", new Product("Pera", 5), null);
+
+        List<WriteBehindQueue.PendingWrite> writes = queue.drain();
+
+        assertEquals(2, writes.size());
+        assertEquals("a", writes.get(0).getId());
+        assertEquals(12, writes.get(0).getProduct().getPrice(), 0);
+        assertEquals(2, writes.get(0).getListeners().size());
+        assertTrue(writes.get(1).getListeners().isEmpty());
+    }
+
+    @Test
+    public void enqueueDelete_replacesPendingUpdate() {
+        WriteBehindQueue queue = new WriteBehindQueue(10);
+        queue.enqueueUpdate("a", new Product("Manzana", 10), null);
+        queue.enqueueDelete("a", null);
+
+        List<WriteBehindQueue.PendingWrite> writes = queue.drain();
+
+        assertEquals(1, writes.size());
+        assertTrue(writes.get(0).isDelete());
+    }
+
+    @Test
+    public void enqueue_reportsWhenThresholdIsReached() {
+        WriteBehindQueue queue = new WriteBehindQueue(2);
+
+        assertFalse(queue.enqueueUpdate("a", new Product("A", 1), null));
+        assertFalse(queue.enqueueUpdate("a", new Product("A", 2), null));
+        assertTrue(queue.enqueueUpdate("b", new Product("B", 1), null));
+    }
+
+    @Test
+    public void counters_trackSavedAndFlushedWrites() {
+        WriteBehindQueue queue = new WriteBehindQueue(10);
+        for (int i = 0; i < 5; i++) {
+            queue.enqueueUpdate("a", new Product("A", i), null);
+        }
+        queue.drain();
+        queue.drain();
+
+        assertEquals(5, queue.getRequestedWrites());
+        assertEquals(4, queue.getSavedWrites());
+        assertEquals(1, queue.getFlushedWrites());
+        assertEquals(1, queue.getFlushes());
+        assertEquals(0, queue.size());
+    }
+
+    @Test
+    public void requeue_putsFailedWriteBackWithoutCountingIt() {
+        WriteBehindQueue queue = new WriteBehindQueue(10);
+        queue.enqueueUpdate("a", new Product("Manzana", 10), result -> { });
+        WriteBehindQueue.PendingWrite failed = queue.drain().get(0);
+
+        queue.requeue(failed);
+        List<WriteBehindQueue.PendingWrite> writes = queue.drain();
+
+        assertEquals(1, writes.size());
+        assertSame(failed, writes.get(0));
+        assertEquals(1, writes.get(0).getAttempts());
+        assertEquals(1, queue.getRequestedWrites());
+    }
+
+    @Test
+    public void requeue_keepsNewerWriteAndAddsListeners() {
+        WriteBehindQueue queue = new WriteBehindQueue(10);
+        queue.enqueueUpdate("a", new Product("Manzana", 10), result -> { });
+        WriteBehindQueue.PendingWrite failed = queue.drain().get(0);
+        queue.enqueueUpdate("a", new Product("Manzana", 12), result -> { });
+
+        queue.requeue(failed);
+        List<WriteBehindQueue.PendingWrite> writes = queue.drain();
+
+        assertEquals(1, writes.size());
+        assertEquals(12, writes.get(0).getProduct().getPrice(), 0);
+        assertEquals(2, writes.get(0).getListeners().size());
+        assertEquals(0, writes.get(0).getAttempts());
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.quiz2android.data.model;
+
+import org.junit.Test;
+
+/**
+ * Benchmark local (JVM) de ProductSearchIndex con 100.000 productos: memoria
+ * aproximada del índice y la peor latencia de varias búsquedas. No forma
+ * parte de "test" (ver app/build.gradle.kts); los resultados se imprimen en
+ * la salida de la prueba:
+ *
+ * ./gradlew :app:testDebugUnitTest -Pbenchmarks --tests "*ProductSearchIndexBenchmark" -i
+ */
+public class ProductSearchIndexBenchmark {
+
+    private static final int PRODUCTS = 100_000;
+    private static final int WARMUP_ROUNDS = 50;
+
+    @Test
+    public void benchmark_100kProducts() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        String[] words = {"manzana", "pera", "leche", "arroz", "cafe", "jugo", "pan", "queso"};
+        for (int i = 0; i < PRODUCTS; i++) {
+            Product product = new Product(words[i % words.length] + " " + words[(i / 8) % words.length] + " " + i, 0);
+            product.setId("doc-" + i);
+            index.put(product);
+        }
+
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            index.search("queso 12", 50);
+        }
+        long worst = 0;
+        for (String query : new String[]{"m", "ma", "man", "leche pan", "9999", "queso 12"}) {
+            index.search(query, 50);
+            worst = Math.max(worst, index.getLastQueryNanos());
+        }
+
+        System.out.printf("Índice: %d productos, ~%.1f MB, peor búsqueda %.2f ms%n",
+                index.size(), index.estimateBytes() / (1024.0 * 1024.0), worst / 1e6);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.quiz2android.data.model;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Pruebas locales de ProductSearchIndex: búsqueda, orden de relevancia y
+ * actualización incremental. La medición de latencia y memoria está en
+ * ProductSearchIndexBenchmark.
+ */
+public class ProductSearchIndexTest {
+
+    private static Product product(String id, String name) {
+        Product product = new Product(name, 0);
+        product.setId(id);
+        return product;
+    }
+
+    @Test
+    public void search_ranksExactThenPrefixThenWordThenContains() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.put(product("1", "Jugo de manzana"));
+        index.put(product("2", "Manzana"));
+        index.put(product("3", "Manzanas rojas"));
+        index.put(product("4", "Compota amanzanada"));
+
+        List<Product> result = index.search("manzana", 10);
+
+        assertEquals(4, result.size());
+        assertEquals("2", result.get(0).getId());
+        assertEquals("3", result.get(1).getId());
+        assertEquals("1", result.get(2).getId());
+        assertEquals("4", result.get(3).getId());
+    }
+
+    @Test
+    public void search_ignoresCaseAndAccents() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.put(product("1", "Café Molido"));
+
+        assertEquals(1, index.search("cafe", 10).size());
+        assertEquals(1, index.search("MOLI", 10).size());
+    }
+
+    @Test
+    public void search_supportsShortQueries() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.put(product("1", "Pan"));
+        index.put(product("2", "Leche"));
+
+        assertEquals("1", index.search("pa", 10).get(0).getId());
+        assertEquals(1, index.search("n", 10).size());
+        assertEquals(2, index.search("e", 10).size() + index.search("p", 10).size());
+    }
+
+    @Test
+    public void putAndRemove_updateIncrementally() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.put(product("1", "Arroz"));
+        assertEquals(1, index.search("arroz", 10).size());
+
+        index.put(product("1", "Frijol"));
+        assertTrue(index.search("arroz", 10).isEmpty());
+        assertEquals(1, index.search("frijol", 10).size());
+
+        index.remove("1");
+        assertTrue(index.search("frijol", 10).isEmpty());
+        assertEquals(0, index.size());
+    }
+
+    @Test
+    public void search_respectsLimit() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        for (int i = 0; i < 20; i++) {
+            index.put(product(String.valueOf(i), "Producto " + i));
+        }
+
+        assertEquals(5, index.search("producto", 5).size());
+    }
+}